@@ -1,5 +1,6 @@
 package ir.ramtung.tinyme.data;
 
+import ir.ramtung.tinyme.domain.entity.LinkedOrderBook;
 import ir.ramtung.tinyme.domain.entity.Order;
 import ir.ramtung.tinyme.domain.entity.OrderBook;
 import ir.ramtung.tinyme.domain.entity.Side;
@@ -16,7 +17,7 @@ public class SecurityQueueInfo {
     private final static boolean ASCENDING = true;
     private final static boolean DESCENDING = false;
 
-    private OrderBook orderBook = new OrderBook();
+    private OrderBook orderBook = new LinkedOrderBook();
     private EnterOrderRepo buyDisabledOrders = new EnterOrderRepo(ASCENDING);
     private EnterOrderRepo buyEnabledOrders = new EnterOrderRepo(ASCENDING);
     private EnterOrderRepo sellDisabledOrders = new EnterOrderRepo(DESCENDING);
@@ -67,23 +68,4 @@ public class SecurityQueueInfo {
         else
             sellEnabledOrders.removeByRqId(rqId);
     }
-
-    public OrderBook getCandidateOrders(int openingPrice){
-        OrderBook candidateOrders = new OrderBook();
-        for (Order order : orderBook.getBuyQueue())
-            if (order.getPrice() >= openingPrice)
-                candidateOrders.enqueue(order);
-
-        for (Order order : orderBook.getSellQueue())
-            if (order.getPrice() <= openingPrice)
-                candidateOrders.enqueue(order);
-
-        return candidateOrders;
-    }
-
-    public void syncRemovedOrders(OrderBook candidateOrders, OrderBook candidateOrdersCopy, Side side) {
-        for (Order order : candidateOrdersCopy.getQueue(side))
-            if (!candidateOrders.hasByOrderId(side, order.getOrderId()))
-                orderBook.removeByOrderId(side, order.getOrderId());
-    }
 }
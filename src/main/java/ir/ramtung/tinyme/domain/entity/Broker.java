@@ -15,14 +15,14 @@ public class Broker {
     @Getter
     private String name;
     @Getter
-    private long credit;
+    private volatile long credit;
 
-    public void increaseCreditBy(long amount) {
+    public synchronized void increaseCreditBy(long amount) {
         assert amount >= 0;
         credit += amount;
     }
 
-    public void decreaseCreditBy(long amount) {
+    public synchronized void decreaseCreditBy(long amount) {
         assert amount >= 0;
         credit -= amount;
     }
@@ -30,4 +30,12 @@ public class Broker {
     public boolean hasEnoughCredit(long amount) {
         return credit >= amount;
     }
+
+    public synchronized boolean tryDecreaseCreditBy(long amount) {
+        assert amount >= 0;
+        if (credit < amount)
+            return false;
+        credit -= amount;
+        return true;
+    }
 }
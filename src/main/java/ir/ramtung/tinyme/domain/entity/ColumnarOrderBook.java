@@ -0,0 +1,441 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class ColumnarOrderBook extends OrderBook {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NONE = -1;
+    private static final long NO_ID = -1;
+    private static final long NO_ENTRY_TIME = Long.MIN_VALUE;
+
+    private long[] orderIds;
+    private long[] brokerIds;
+    private long[] shareholderIds;
+    private long[] entrySeconds;
+    private int[] entryNanos;
+    private byte[] sides;
+    private int[] quantities;
+    private int[] prices;
+    private int[] peakSizes;
+    private int[] displayedQuantities;
+    private int[] minimumExecutionQuantities;
+    private int[] stopPrices;
+    private int[] next;
+    private int[] prev;
+    private int freeSlot = NONE;
+    private int usedSlots;
+
+    private final TreeMap<Integer, Level> buyLevels;
+    private final TreeMap<Integer, Level> sellLevels;
+    private final OrderIdIndex buyIndex;
+    private final OrderIdIndex sellIndex;
+    private Level bestBuyLevel;
+    private Level bestSellLevel;
+
+    private Security security;
+    private final HashMap<Long, Broker> brokers;
+    private final HashMap<Long, Shareholder> shareholders;
+
+    private static final class Level {
+        private final int price;
+        private int head = NONE;
+        private int tail = NONE;
+        private long totalQuantity;
+
+        private Level(int price) {
+            this.price = price;
+        }
+    }
+
+    public ColumnarOrderBook() {
+        allocate(INITIAL_CAPACITY);
+        buyLevels = new TreeMap<>(Comparator.reverseOrder());
+        sellLevels = new TreeMap<>();
+        buyIndex = new OrderIdIndex();
+        sellIndex = new OrderIdIndex();
+        brokers = new HashMap<>();
+        shareholders = new HashMap<>();
+    }
+
+    @Override
+    public void enqueue(Order order) {
+        order.queue();
+        if (updateInPlace(order))
+            return;
+        int slot = store(order);
+        Level level = levelOf(order.getSide(), order.getPrice());
+        next[slot] = NONE;
+        prev[slot] = level.tail;
+        if (level.tail == NONE)
+            level.head = slot;
+        else
+            next[level.tail] = slot;
+        level.tail = slot;
+        index(order.getSide(), slot);
+    }
+
+    @Override
+    public void putBack(Order order) {
+        order.queue();
+        if (updateInPlace(order))
+            return;
+        int slot = store(order);
+        Level level = levelOf(order.getSide(), order.getPrice());
+        prev[slot] = NONE;
+        next[slot] = level.head;
+        if (level.head == NONE)
+            level.tail = slot;
+        else
+            prev[level.head] = slot;
+        level.head = slot;
+        index(order.getSide(), slot);
+    }
+
+    @Override
+    public LinkedList<Order> getQueue(Side side) {
+        LinkedList<Order> queue = new LinkedList<>();
+        for (Level level : getLevels(side).values())
+            for (int slot = level.head; slot != NONE; slot = next[slot])
+                queue.add(view(slot));
+        return queue;
+    }
+
+    @Override
+    public LinkedList<Order> getQueueUpTo(Side side, int price) {
+        LinkedList<Order> queue = new LinkedList<>();
+        for (Level level : getLevels(side).headMap(price, true).values())
+            for (int slot = level.head; slot != NONE; slot = next[slot])
+                queue.add(view(slot));
+        return queue;
+    }
+
+    @Override
+    public Order findByOrderId(Side side, long orderId) {
+        int slot = getIndex(side).get(orderId);
+        return slot == OrderIdIndex.MISSING ? null : view(slot);
+    }
+
+    @Override
+    public boolean hasByOrderId(Side side, long orderId) {
+        return getIndex(side).contains(orderId);
+    }
+
+    @Override
+    public boolean removeByOrderId(Side side, long orderId) {
+        int slot = getIndex(side).remove(orderId);
+        if (slot == OrderIdIndex.MISSING)
+            return false;
+        release(side, slot);
+        return true;
+    }
+
+    @Override
+    public void removeZeroQuantityOrders() {
+        removeZeroQuantityOrders(Side.BUY);
+        removeZeroQuantityOrders(Side.SELL);
+    }
+
+    private void removeZeroQuantityOrders(Side side) {
+        for (Level level : getLevels(side).values().toArray(new Level[0])) {
+            int slot = level.head;
+            while (slot != NONE) {
+                int following = next[slot];
+                if (visibleQuantity(slot) == 0) {
+                    getIndex(side).remove(orderIds[slot]);
+                    release(side, slot);
+                }
+                slot = following;
+            }
+        }
+    }
+
+    @Override
+    public Order matchWithFirst(Order newOrder) {
+        int slot = getBestLevel(newOrder.getSide().opposite()).head;
+        int price = prices[slot];
+        if (newOrder.getSide() == Side.BUY ? newOrder.getPrice() >= price : newOrder.getPrice() <= price)
+            return view(slot);
+        else
+            return null;
+    }
+
+    @Override
+    public int bestPrice(Side side) {
+        return getBestLevel(side).price;
+    }
+
+    @Override
+    public int bestQuantity(Side side) {
+        return visibleQuantity(getBestLevel(side).head);
+    }
+
+    @Override
+    public boolean hasOrderOfType(Side side) {
+        return getBestLevel(side) != null;
+    }
+
+    @Override
+    public void removeFirst(Side side) {
+        int slot = getBestLevel(side).head;
+        getIndex(side).remove(orderIds[slot]);
+        release(side, slot);
+    }
+
+    @Override
+    public int getWorstPrice(Side side) {
+        return getLevels(side).lastKey();
+    }
+
+    @Override
+    protected long valueOfBest(Side side, int quantity) {
+        long value = 0;
+        for (Level level : getLevels(side).values()) {
+            if (quantity == 0)
+                break;
+            int taken = (int) Math.min(quantity, level.totalQuantity);
+            value += (long) taken * level.price;
+            quantity -= taken;
+        }
+        return value;
+    }
+
+    @Override
+    public TreeMap<Integer, Long> getDepth(Side side) {
+        TreeMap<Integer, Long> depth = new TreeMap<>();
+        for (Level level : getLevels(side).values())
+            depth.put(level.price, level.totalQuantity);
+        return depth;
+    }
+
+    @Override
+    protected long quantityAtOrBetter(Side side, int price) {
+        long total = 0;
+        for (Level level : getLevels(side).headMap(price, true).values())
+            total += level.totalQuantity;
+        return total;
+    }
+
+    @Override
+    public void syncQuantity(Order order) {
+        int slot = getIndex(order.getSide()).get(order.getOrderId());
+        if (slot != OrderIdIndex.MISSING)
+            write(slot, order);
+    }
+
+    @Override
+    public OrderBook snapshot() {
+        ColumnarOrderBook copy = new ColumnarOrderBook();
+        for (Order order : getBuyQueue())
+            copy.enqueue(order);
+        for (Order order : getSellQueue())
+            copy.enqueue(order);
+        return copy;
+    }
+
+    public int size() {
+        return usedSlots;
+    }
+
+    private boolean updateInPlace(Order order) {
+        int slot = getIndex(order.getSide()).get(order.getOrderId());
+        if (slot == OrderIdIndex.MISSING)
+            return false;
+        if (prices[slot] == order.getPrice()) {
+            write(slot, order);
+            return true;
+        }
+        removeByOrderId(order.getSide(), order.getOrderId());
+        return false;
+    }
+
+    private int store(Order order) {
+        if (freeSlot == NONE)
+            allocate(orderIds.length * 2);
+        int slot = freeSlot;
+        freeSlot = next[slot];
+        usedSlots++;
+
+        if (security == null)
+            security = order.getSecurity();
+        orderIds[slot] = order.getOrderId();
+        brokerIds[slot] = intern(order.getBroker());
+        shareholderIds[slot] = intern(order.getShareholder());
+        LocalDateTime entryTime = order.getEntryTime();
+        entrySeconds[slot] = entryTime == null ? NO_ENTRY_TIME : entryTime.toEpochSecond(ZoneOffset.UTC);
+        entryNanos[slot] = entryTime == null ? 0 : entryTime.getNano();
+        sides[slot] = (byte) order.getSide().ordinal();
+        prices[slot] = order.getPrice();
+        minimumExecutionQuantities[slot] = order.getMinimumExecutionQuantity();
+        stopPrices[slot] = order.getStopPrice();
+        quantities[slot] = 0;
+        write(slot, order);
+        return slot;
+    }
+
+    private void write(int slot, Order order) {
+        long delta = (long) order.getTotalQuantity() - quantities[slot];
+        account(sideOf(slot), prices[slot], shareholderIds[slot], delta);
+        levelOf(sideOf(slot), prices[slot]).totalQuantity += delta;
+        quantities[slot] = order.getTotalQuantity();
+        if (order instanceof IcebergOrder icebergOrder) {
+            peakSizes[slot] = icebergOrder.getPeakSize();
+            displayedQuantities[slot] = icebergOrder.getDisplayedQuantity();
+        } else {
+            peakSizes[slot] = 0;
+            displayedQuantities[slot] = 0;
+        }
+    }
+
+    private void index(Side side, int slot) {
+        getIndex(side).put(orderIds[slot], slot);
+    }
+
+    private void release(Side side, int slot) {
+        Level level = getLevels(side).get(prices[slot]);
+        account(side, prices[slot], shareholderIds[slot], -quantities[slot]);
+        level.totalQuantity -= quantities[slot];
+
+        if (prev[slot] == NONE)
+            level.head = next[slot];
+        else
+            next[prev[slot]] = next[slot];
+        if (next[slot] == NONE)
+            level.tail = prev[slot];
+        else
+            prev[next[slot]] = prev[slot];
+
+        if (level.head == NONE) {
+            getLevels(side).remove(level.price);
+            refreshBestLevel(side);
+        }
+
+        prev[slot] = NONE;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        usedSlots--;
+    }
+
+    private Order view(int slot) {
+        LocalDateTime entryTime = entrySeconds[slot] == NO_ENTRY_TIME ? null
+                : LocalDateTime.ofEpochSecond(entrySeconds[slot], entryNanos[slot], ZoneOffset.UTC);
+        if (peakSizes[slot] > 0)
+            return IcebergOrder.builder()
+                    .orderId(orderIds[slot])
+                    .security(security)
+                    .side(sideOf(slot))
+                    .quantity(quantities[slot])
+                    .price(prices[slot])
+                    .broker(brokers.get(brokerIds[slot]))
+                    .shareholder(shareholders.get(shareholderIds[slot]))
+                    .entryTime(entryTime)
+                    .peakSize(peakSizes[slot])
+                    .displayedQuantity(displayedQuantities[slot])
+                    .status(OrderStatus.QUEUED)
+                    .minimumExecutionQuantity(minimumExecutionQuantities[slot])
+                    .stopPrice(stopPrices[slot])
+                    .build();
+        Order view = new Order();
+        view.orderId = orderIds[slot];
+        view.security = security;
+        view.side = sideOf(slot);
+        view.quantity = quantities[slot];
+        view.price = prices[slot];
+        view.broker = brokers.get(brokerIds[slot]);
+        view.shareholder = shareholders.get(shareholderIds[slot]);
+        view.entryTime = entryTime;
+        view.status = OrderStatus.QUEUED;
+        view.minimumExecutionQuantity = minimumExecutionQuantities[slot];
+        view.stopPrice = stopPrices[slot];
+        return view;
+    }
+
+    private int visibleQuantity(int slot) {
+        return peakSizes[slot] > 0 ? displayedQuantities[slot] : quantities[slot];
+    }
+
+    private Side sideOf(int slot) {
+        return sides[slot] == Side.BUY.ordinal() ? Side.BUY : Side.SELL;
+    }
+
+    private long intern(Broker broker) {
+        if (broker == null)
+            return NO_ID;
+        brokers.put(broker.getBrokerId(), broker);
+        return broker.getBrokerId();
+    }
+
+    private long intern(Shareholder shareholder) {
+        if (shareholder == null)
+            return NO_ID;
+        shareholders.put(shareholder.getShareholderId(), shareholder);
+        return shareholder.getShareholderId();
+    }
+
+    private NavigableMap<Integer, Level> getLevels(Side side) {
+        return side == Side.BUY ? buyLevels : sellLevels;
+    }
+
+    private OrderIdIndex getIndex(Side side) {
+        return side == Side.BUY ? buyIndex : sellIndex;
+    }
+
+    private Level getBestLevel(Side side) {
+        return side == Side.BUY ? bestBuyLevel : bestSellLevel;
+    }
+
+    private Level levelOf(Side side, int price) {
+        var levels = getLevels(side);
+        Level level = levels.get(price);
+        if (level == null) {
+            level = new Level(price);
+            levels.put(price, level);
+            refreshBestLevel(side);
+        }
+        return level;
+    }
+
+    private void refreshBestLevel(Side side) {
+        var best = getLevels(side).firstEntry();
+        if (side == Side.BUY)
+            bestBuyLevel = best == null ? null : best.getValue();
+        else
+            bestSellLevel = best == null ? null : best.getValue();
+    }
+
+    private void allocate(int capacity) {
+        int oldCapacity = orderIds == null ? 0 : orderIds.length;
+        orderIds = grow(orderIds, capacity);
+        brokerIds = grow(brokerIds, capacity);
+        shareholderIds = grow(shareholderIds, capacity);
+        entrySeconds = grow(entrySeconds, capacity);
+        entryNanos = grow(entryNanos, capacity);
+        sides = sides == null ? new byte[capacity] : Arrays.copyOf(sides, capacity);
+        quantities = grow(quantities, capacity);
+        prices = grow(prices, capacity);
+        peakSizes = grow(peakSizes, capacity);
+        displayedQuantities = grow(displayedQuantities, capacity);
+        minimumExecutionQuantities = grow(minimumExecutionQuantities, capacity);
+        stopPrices = grow(stopPrices, capacity);
+        next = grow(next, capacity);
+        prev = grow(prev, capacity);
+        for (int slot = capacity - 1; slot >= oldCapacity; slot--) {
+            next[slot] = freeSlot;
+            freeSlot = slot;
+        }
+    }
+
+    private static long[] grow(long[] column, int capacity) {
+        return column == null ? new long[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private static int[] grow(int[] column, int capacity) {
+        return column == null ? new int[capacity] : Arrays.copyOf(column, capacity);
+    }
+}
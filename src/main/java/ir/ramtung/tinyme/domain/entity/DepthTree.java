@@ -0,0 +1,139 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+class DepthTree {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_CAPACITY = 1 << 17;
+    private static final int REENABLE_SPAN = MAX_CAPACITY / 2;
+
+    private long[] values;
+    private long[] tree;
+    private int lowestPrice;
+    private long total;
+    private TreeMap<Integer, Long> sparse;
+
+    boolean isEnabled() {
+        return sparse == null;
+    }
+
+    long total() {
+        return total;
+    }
+
+    void add(int price, long delta) {
+        total += delta;
+        if (delta == 0)
+            return;
+        if (sparse != null) {
+            addSparse(price, delta);
+            return;
+        }
+        if (values == null)
+            allocate(price);
+        else if (price < lowestPrice || (long) price - lowestPrice >= values.length) {
+            if (!rebase(price)) {
+                disable();
+                addSparse(price, delta);
+                return;
+            }
+        }
+
+        int index = price - lowestPrice;
+        values[index] += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    long sumAtOrBelow(int price) {
+        if (values == null || price < lowestPrice)
+            return 0;
+        long sum = 0;
+        for (int i = (int) Math.min((long) price - lowestPrice + 1, values.length); i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    private void allocate(int price) {
+        lowestPrice = (int) Math.max((long) price - INITIAL_CAPACITY / 2, Integer.MIN_VALUE);
+        values = new long[INITIAL_CAPACITY];
+        tree = new long[INITIAL_CAPACITY + 1];
+    }
+
+    private boolean rebase(int price) {
+        int first = 0;
+        while (first < values.length && values[first] == 0)
+            first++;
+        if (first == values.length) {
+            allocate(price);
+            return true;
+        }
+        int last = values.length - 1;
+        while (values[last] == 0)
+            last--;
+
+        long low = Math.min((long) lowestPrice + first, price);
+        long high = Math.max((long) lowestPrice + last, price);
+        long span = high - low + 1;
+        if (span > MAX_CAPACITY)
+            return false;
+
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < span)
+            capacity *= 2;
+        capacity = Math.min(capacity * 2, MAX_CAPACITY);
+        long newLowestPrice = price < lowestPrice + first ? Math.max(high - capacity + 1, Integer.MIN_VALUE) : low;
+        newLowestPrice = Math.min(newLowestPrice, (long) Integer.MAX_VALUE - capacity + 1);
+
+        long[] newValues = new long[capacity];
+        System.arraycopy(values, first, newValues, (int) (lowestPrice + first - newLowestPrice), last - first + 1);
+        values = newValues;
+        lowestPrice = (int) newLowestPrice;
+        rebuild();
+        return true;
+    }
+
+    private void disable() {
+        sparse = new TreeMap<>();
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != 0)
+                sparse.put(lowestPrice + i, values[i]);
+        values = null;
+        tree = null;
+    }
+
+    private void addSparse(int price, long delta) {
+        sparse.merge(price, delta, (current, change) -> current + change == 0 ? null : current + change);
+        if (delta < 0 && (sparse.isEmpty() || (long) sparse.lastKey() - sparse.firstKey() < REENABLE_SPAN))
+            enable();
+    }
+
+    private void enable() {
+        TreeMap<Integer, Long> live = sparse;
+        sparse = null;
+        if (live.isEmpty())
+            return;
+        long span = (long) live.lastKey() - live.firstKey() + 1;
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < span)
+            capacity *= 2;
+        capacity = Math.min(capacity * 2, MAX_CAPACITY);
+        long newLowestPrice = Math.max((long) live.firstKey() - (capacity - span) / 2, Integer.MIN_VALUE);
+        lowestPrice = (int) Math.min(newLowestPrice, (long) Integer.MAX_VALUE - capacity + 1);
+        values = new long[capacity];
+        for (Map.Entry<Integer, Long> level : live.entrySet())
+            values[level.getKey() - lowestPrice] = level.getValue();
+        rebuild();
+    }
+
+    private void rebuild() {
+        tree = new long[values.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length)
+                tree[parent] += tree[i];
+        }
+    }
+}
@@ -13,14 +13,21 @@ import lombok.experimental.SuperBuilder;
 public class IcebergOrder extends Order {
     protected int peakSize;
     protected int displayedQuantity;
+
+    private IcebergOrder(IcebergOrder order, int quantity, int displayedQuantity) {
+        super(order, quantity);
+        this.peakSize = order.peakSize;
+        this.displayedQuantity = displayedQuantity;
+    }
+
     @Override
     public Order snapshot() {
-        return IcebergOrder.builder().orderId(orderId).security(security).side(side).quantity(quantity).price(price).broker(broker).shareholder(shareholder).entryTime(entryTime).peakSize(peakSize).displayedQuantity(displayedQuantity).status(OrderStatus.SNAPSHOT).minimumExecutionQuantity(minimumExecutionQuantity).build();
+        return new IcebergOrder(this, quantity, displayedQuantity);
     }
 
     @Override
     public Order snapshotWithQuantity(int newQuantity) {
-        return IcebergOrder.builder().orderId(orderId).security(security).side(side).quantity(newQuantity).price(price).broker(broker).shareholder(shareholder).entryTime(entryTime).peakSize(peakSize).displayedQuantity(Math.min(newQuantity, peakSize)).status(OrderStatus.SNAPSHOT).minimumExecutionQuantity(minimumExecutionQuantity).build();
+        return new IcebergOrder(this, newQuantity, Math.min(newQuantity, peakSize));
     }
 
     @Override
@@ -0,0 +1,272 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class LinkedOrderBook extends OrderBook {
+    private static final int INITIAL_NODES = 64;
+    private static final int MAX_SPARE_LEVELS = 64;
+
+    private final TreeMap<Integer, PriceLevel> buyLevels;
+    private final TreeMap<Integer, PriceLevel> sellLevels;
+    private final OrderIdIndex buyIndex;
+    private final OrderIdIndex sellIndex;
+    private PriceLevel.Node[] nodes = new PriceLevel.Node[INITIAL_NODES];
+    private int nodeCount;
+    private PriceLevel bestBuyLevel;
+    private PriceLevel bestSellLevel;
+    private final ArrayDeque<PriceLevel.Node> spareNodes = new ArrayDeque<>();
+    private final ArrayDeque<PriceLevel> spareLevels = new ArrayDeque<>();
+
+    public LinkedOrderBook() {
+        buyLevels = new TreeMap<>(Comparator.reverseOrder());
+        sellLevels = new TreeMap<>();
+        buyIndex = new OrderIdIndex();
+        sellIndex = new OrderIdIndex();
+    }
+
+    @Override
+    public void enqueue(Order order) {
+        order.queue();
+        if (isAlreadyQueued(order))
+            return;
+        index(order, levelOf(order).addLast(order, newNode()));
+    }
+
+    @Override
+    public LinkedList<Order> getQueue(Side side) {
+        LinkedList<Order> queue = new LinkedList<>();
+        for (PriceLevel level : getLevels(side).values())
+            level.forEach(queue::add);
+        return queue;
+    }
+
+    @Override
+    public LinkedList<Order> getQueueUpTo(Side side, int price) {
+        LinkedList<Order> queue = new LinkedList<>();
+        for (PriceLevel level : getLevels(side).headMap(price, true).values())
+            level.forEach(queue::add);
+        return queue;
+    }
+
+    private NavigableMap<Integer, PriceLevel> getLevels(Side side) {
+        return side == Side.BUY ? buyLevels : sellLevels;
+    }
+
+    private OrderIdIndex getIndex(Side side) {
+        return side == Side.BUY ? buyIndex : sellIndex;
+    }
+
+    @Override
+    public Order findByOrderId(Side side, long orderId) {
+        PriceLevel.Node node = nodeOf(side, orderId);
+        return node == null ? null : node.order;
+    }
+
+    @Override
+    public boolean hasByOrderId(Side side, long orderId) {
+        return getIndex(side).contains(orderId);
+    }
+
+    @Override
+    public boolean removeByOrderId(Side side, long orderId) {
+        int slot = getIndex(side).remove(orderId);
+        if (slot == OrderIdIndex.MISSING)
+            return false;
+        unlink(side, nodes[slot]);
+        return true;
+    }
+
+    @Override
+    public void removeZeroQuantityOrders() {
+        removeZeroQuantityOrders(Side.BUY);
+        removeZeroQuantityOrders(Side.SELL);
+    }
+
+    private void removeZeroQuantityOrders(Side side) {
+        for (PriceLevel level : getLevels(side).values().toArray(new PriceLevel[0])) {
+            PriceLevel.Node node = level.firstNode();
+            while (node != null) {
+                PriceLevel.Node following = node.next;
+                if (node.order.getQuantity() == 0) {
+                    getIndex(side).remove(node.order.getOrderId());
+                    unlink(side, node);
+                }
+                node = following;
+            }
+        }
+    }
+
+    @Override
+    public Order matchWithFirst(Order newOrder) {
+        Order first = getBestLevel(newOrder.getSide().opposite()).getFirst();
+        if (newOrder.matches(first))
+            return first;
+        else
+            return null;
+    }
+
+    @Override
+    public int bestPrice(Side side) {
+        return getBestLevel(side).getPrice();
+    }
+
+    @Override
+    public int bestQuantity(Side side) {
+        return getBestLevel(side).getFirst().getQuantity();
+    }
+
+    @Override
+    public void putBack(Order order) {
+        order.queue();
+        if (isAlreadyQueued(order))
+            return;
+        index(order, levelOf(order).addFirst(order, newNode()));
+    }
+
+    @Override
+    public boolean hasOrderOfType(Side side) {
+        return getBestLevel(side) != null;
+    }
+
+    @Override
+    public void removeFirst(Side side) {
+        PriceLevel.Node node = getBestLevel(side).firstNode();
+        getIndex(side).remove(node.order.getOrderId());
+        unlink(side, node);
+    }
+
+    @Override
+    public int getWorstPrice(Side side) {
+        return getLevels(side).lastKey();
+    }
+
+    @Override
+    public TreeMap<Integer, Long> getDepth(Side side) {
+        TreeMap<Integer, Long> depth = new TreeMap<>();
+        for (PriceLevel level : getLevels(side).values())
+            depth.put(level.getPrice(), level.getTotalQuantity());
+        return depth;
+    }
+
+    @Override
+    protected long quantityAtOrBetter(Side side, int price) {
+        long total = 0;
+        for (PriceLevel level : getLevels(side).headMap(price, true).values())
+            total += level.getTotalQuantity();
+        return total;
+    }
+
+    @Override
+    protected long valueOfBest(Side side, int quantity) {
+        long value = 0;
+        for (PriceLevel level : getLevels(side).values()) {
+            if (quantity == 0)
+                break;
+            int taken = (int) Math.min(quantity, level.getTotalQuantity());
+            value += (long) taken * level.getPrice();
+            quantity -= taken;
+        }
+        return value;
+    }
+
+    @Override
+    public void syncQuantity(Order order) {
+        PriceLevel.Node node = nodeOf(order.getSide(), order.getOrderId());
+        if (node != null && node.order == order)
+            account(order.getSide(), node, order.getTotalQuantity());
+    }
+
+    @Override
+    public OrderBook snapshot() {
+        LinkedOrderBook copy = new LinkedOrderBook();
+        for (PriceLevel level : buyLevels.values())
+            for (Order order : level)
+                copy.enqueue(order.snapshot());
+
+        for (PriceLevel level : sellLevels.values())
+            for (Order order : level)
+                copy.enqueue(order.snapshot());
+
+        return copy;
+    }
+
+    private boolean isAlreadyQueued(Order order) {
+        PriceLevel.Node queued = nodeOf(order.getSide(), order.getOrderId());
+        if (queued == null)
+            return false;
+        if (queued.order == order) {
+            account(order.getSide(), queued, order.getTotalQuantity());
+            return true;
+        }
+        removeByOrderId(order.getSide(), order.getOrderId());
+        return false;
+    }
+
+    private PriceLevel.Node nodeOf(Side side, long orderId) {
+        int slot = getIndex(side).get(orderId);
+        return slot == OrderIdIndex.MISSING ? null : nodes[slot];
+    }
+
+    private void index(Order order, PriceLevel.Node node) {
+        getIndex(order.getSide()).put(order.getOrderId(), node.slot);
+        account(order.getSide(), node, order.getTotalQuantity());
+    }
+
+    private void account(Side side, PriceLevel.Node node, int quantity) {
+        long shareholderId = side == Side.SELL ? node.order.getShareholder().getShareholderId() : 0;
+        account(side, node.level.getPrice(), shareholderId, node.level.account(node, quantity));
+    }
+
+    private void unlink(Side side, PriceLevel.Node node) {
+        PriceLevel level = node.level;
+        account(side, node, 0);
+        level.unlink(node);
+        spareNodes.push(node);
+        if (level.isEmpty()) {
+            getLevels(side).remove(level.getPrice());
+            refreshBestLevel(side);
+            if (spareLevels.size() < MAX_SPARE_LEVELS)
+                spareLevels.push(level);
+        }
+    }
+
+    private PriceLevel.Node newNode() {
+        PriceLevel.Node node = spareNodes.poll();
+        if (node != null)
+            return node;
+        if (nodeCount == nodes.length)
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        node = new PriceLevel.Node(nodeCount);
+        nodes[nodeCount++] = node;
+        return node;
+    }
+
+    private PriceLevel getBestLevel(Side side) {
+        return side == Side.BUY ? bestBuyLevel : bestSellLevel;
+    }
+
+    private PriceLevel levelOf(Order order) {
+        var levels = getLevels(order.getSide());
+        PriceLevel level = levels.get(order.getPrice());
+        if (level == null) {
+            PriceLevel spare = spareLevels.poll();
+            level = spare == null ? new PriceLevel(order.getPrice()) : spare.reset(order.getPrice());
+            levels.put(order.getPrice(), level);
+            refreshBestLevel(order.getSide());
+        }
+        return level;
+    }
+
+    private void refreshBestLevel(Side side) {
+        var best = getLevels(side).firstEntry();
+        if (side == Side.BUY)
+            bestBuyLevel = best == null ? null : best.getValue();
+        else
+            bestSellLevel = best == null ? null : best.getValue();
+    }
+}
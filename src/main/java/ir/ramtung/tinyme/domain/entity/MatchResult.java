@@ -10,7 +10,7 @@ public final class MatchResult {
     private final LinkedList<Trade> trades;
 
     public static MatchResult executed(Order remainder, List<Trade> trades) {
-        return new MatchResult(MatchingOutcome.EXECUTED, remainder, new LinkedList<>(trades));
+        return new MatchResult(MatchingOutcome.EXECUTED, remainder, adopt(trades));
     }
 
     public static MatchResult notEnoughCredit() {
@@ -29,7 +29,10 @@ public final class MatchResult {
         return new MatchResult(MatchingOutcome.NOT_SATISFY_MIN_EXEC, null, new LinkedList<>());
     }
     public static MatchResult auctioned(List<Trade> trades) {
-        return new MatchResult(MatchingOutcome.AUCTIONED, null, new LinkedList<>(trades));
+        return new MatchResult(MatchingOutcome.AUCTIONED, null, adopt(trades));
+    }
+    private static LinkedList<Trade> adopt(List<Trade> trades) {
+        return trades instanceof LinkedList<Trade> list ? list : new LinkedList<>(trades);
     }
     private MatchResult(MatchingOutcome outcome, Order remainder, LinkedList<Trade> trades) {
         this.outcome = outcome;
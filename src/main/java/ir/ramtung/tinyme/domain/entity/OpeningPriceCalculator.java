@@ -0,0 +1,142 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import org.jgroups.util.Tuple;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+class OpeningPriceCalculator {
+    private final int tickSize;
+    private final int lastTradePrice;
+
+    OpeningPriceCalculator(int tickSize, int lastTradePrice) {
+        this.tickSize = tickSize;
+        this.lastTradePrice = lastTradePrice;
+    }
+
+    Tuple<Integer, Integer> calculate(OrderBook orderBook) {
+        if (orderBook.hasIndexedDepth())
+            return calculateFromIndex(orderBook);
+        return calculateFromCurves(orderBook);
+    }
+
+    private Tuple<Integer, Integer> calculateFromIndex(OrderBook orderBook) {
+        int min = orderBook.getWorstPrice(Side.BUY);
+        int max = orderBook.getWorstPrice(Side.SELL);
+        int lastTradeQuantity = quantityAt(orderBook, lastTradePrice);
+        if (min > max)
+            return new Tuple<>(lastTradePrice, lastTradeQuantity);
+
+        int crossing = firstPrice(min, max, price ->
+                orderBook.totalSellQuantityByPrice(price) >= orderBook.totalBuyQuantityByPrice(price));
+        int bestQuantity = 0;
+        if (crossing <= max)
+            bestQuantity = quantityAt(orderBook, crossing);
+        if (crossing > min)
+            bestQuantity = Math.max(bestQuantity, quantityAt(orderBook, crossing - 1));
+        if (lastTradeQuantity >= bestQuantity)
+            return new Tuple<>(lastTradePrice, lastTradeQuantity);
+
+        int quantity = bestQuantity;
+        int low = firstPrice(min, max, price -> orderBook.totalSellQuantityByPrice(price) >= quantity);
+        int high = firstPrice(min, max, price -> orderBook.totalBuyQuantityByPrice(price) < quantity) - 1;
+        return new Tuple<>(closestAlignedPrice(low, high), bestQuantity);
+    }
+
+    private static int quantityAt(OrderBook orderBook, int price) {
+        return Math.min(orderBook.totalBuyQuantityByPrice(price), orderBook.totalSellQuantityByPrice(price));
+    }
+
+    private static int firstPrice(int low, int high, IntPredicate reached) {
+        long from = low;
+        long to = (long) high + 1;
+        while (from < to) {
+            long middle = (from + to) >>> 1;
+            if (reached.test((int) middle))
+                to = middle;
+            else
+                from = middle + 1;
+        }
+        return (int) from;
+    }
+
+    private Tuple<Integer, Integer> calculateFromCurves(OrderBook orderBook) {
+        TreeMap<Integer, Long> buys = orderBook.getDepth(Side.BUY);
+        TreeMap<Integer, Long> sells = orderBook.getDepth(Side.SELL);
+        int min = buys.firstKey();
+        int max = sells.lastKey();
+
+        int bestPrice = lastTradePrice;
+        long bestQuantity = Math.min(orderBook.totalBuyQuantityByPrice(lastTradePrice),
+                orderBook.totalSellQuantityByPrice(lastTradePrice));
+        if (min > max)
+            return new Tuple<>(bestPrice, (int) bestQuantity);
+
+        TreeSet<Integer> breakpoints = new TreeSet<>();
+        breakpoints.add(min);
+        for (int price : sells.subMap(min, false, max, true).keySet())
+            breakpoints.add(price);
+        for (int price : buys.subMap(min, true, max, false).keySet())
+            breakpoints.add(price + 1);
+
+        long buyQuantity = 0;
+        for (long quantity : buys.values())
+            buyQuantity += quantity;
+        long sellQuantity = 0;
+        Iterator<Map.Entry<Integer, Long>> buyLevels = buys.entrySet().iterator();
+        Iterator<Map.Entry<Integer, Long>> sellLevels = sells.entrySet().iterator();
+        Map.Entry<Integer, Long> nextBuy = buyLevels.next();
+        Map.Entry<Integer, Long> nextSell = sellLevels.next();
+
+        Iterator<Integer> starts = breakpoints.iterator();
+        int start = starts.next();
+        while (true) {
+            Integer next = starts.hasNext() ? starts.next() : null;
+            int end = next == null ? max : next - 1;
+
+            while (nextBuy != null && nextBuy.getKey() < start) {
+                buyQuantity -= nextBuy.getValue();
+                nextBuy = buyLevels.hasNext() ? buyLevels.next() : null;
+            }
+            while (nextSell != null && nextSell.getKey() <= start) {
+                sellQuantity += nextSell.getValue();
+                nextSell = sellLevels.hasNext() ? sellLevels.next() : null;
+            }
+
+            int candidate = closestAlignedPrice(start, end);
+            long quantity = Math.min(buyQuantity, sellQuantity);
+            if (candidate >= start && (quantity > bestQuantity ||
+                    quantity == bestQuantity && isCloser(candidate, bestPrice))) {
+                bestPrice = candidate;
+                bestQuantity = quantity;
+            }
+
+            if (next == null)
+                break;
+            start = next;
+        }
+        return new Tuple<>(bestPrice, (int) bestQuantity);
+    }
+
+    private int closestAlignedPrice(int start, int end) {
+        int target = Math.max(start, Math.min(end, lastTradePrice));
+        int below = Math.floorDiv(target, tickSize) * tickSize;
+        int above = below == target ? target : below + tickSize;
+        boolean belowFits = below >= start;
+        boolean aboveFits = above <= end;
+        if (belowFits && aboveFits)
+            return isCloser(above, below) ? above : below;
+        if (belowFits)
+            return below;
+        if (aboveFits)
+            return above;
+        return start - 1;
+    }
+
+    private boolean isCloser(int newOne, int oldOne) {
+        return Math.abs((long) newOne - lastTradePrice) < Math.abs((long) oldOne - lastTradePrice);
+    }
+}
@@ -31,14 +31,30 @@ public class Order {
 
     @Builder.Default
     protected int stopPrice = 0;
+    @Builder.Default
+    protected int trailingOffset = 0;
 
     public Order() {}
+
+    protected Order(Order order, int quantity) {
+        this.orderId = order.orderId;
+        this.security = order.security;
+        this.side = order.side;
+        this.quantity = quantity;
+        this.price = order.price;
+        this.broker = order.broker;
+        this.shareholder = order.shareholder;
+        this.entryTime = order.entryTime;
+        this.status = OrderStatus.SNAPSHOT;
+        this.minimumExecutionQuantity = order.minimumExecutionQuantity;
+    }
+
     public Order snapshot() {
-        return Order.builder().orderId(orderId).security(security).side(side).quantity(quantity).price(price).broker(broker).shareholder(shareholder).entryTime(entryTime).status(OrderStatus.SNAPSHOT).minimumExecutionQuantity(minimumExecutionQuantity).build();
+        return new Order(this, quantity);
     }
 
     public Order snapshotWithQuantity(int newQuantity) {
-        return Order.builder().orderId(orderId).security(security).side(side).quantity(newQuantity).price(price).broker(broker).shareholder(shareholder).entryTime(entryTime).status(OrderStatus.SNAPSHOT).minimumExecutionQuantity(minimumExecutionQuantity).build();
+        return new Order(this, newQuantity);
     }
 
     public boolean matches(Order other) {
@@ -93,7 +109,19 @@ public class Order {
         return status != OrderStatus.FirstEntry || (prevQuantity - quantity >= minimumExecutionQuantity);
     }
 
-    public void setStopPriceZero() { stopPrice = 0; }
+    public boolean isMinExecQuantitySatisfiable(int matchableQuantity) {
+        return status != OrderStatus.FirstEntry || matchableQuantity >= minimumExecutionQuantity;
+    }
+
+    public void setStopPriceZero() {
+        stopPrice = 0;
+        trailingOffset = 0;
+    }
+
+    public void fixStopPrice(int stopPrice) {
+        this.stopPrice = stopPrice;
+        trailingOffset = 0;
+    }
 
     public boolean isUpdatingStopOrderPossible(long orderId, String Isin, long brokerId, Side side,
                                                    long shareholderId) {
@@ -104,6 +132,8 @@ public class Order {
                 brokerId == this.broker.getBrokerId();
     }
 
-    public boolean isStopLimitOrder() { return stopPrice != 0; }
+    public boolean isStopLimitOrder() { return stopPrice != 0 || trailingOffset != 0; }
+
+    public boolean isTrailingStopOrder() { return trailingOffset != 0; }
 }
 
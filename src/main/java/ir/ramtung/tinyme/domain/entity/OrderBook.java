@@ -1,85 +1,62 @@
 package ir.ramtung.tinyme.domain.entity;
 
-import lombok.Getter;
-
+import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.TreeMap;
 
-@Getter
-public class OrderBook {
-    private final LinkedList<Order> buyQueue;
-    private final LinkedList<Order> sellQueue;
+public abstract class OrderBook {
+    private final DepthTree buyDepth = new DepthTree();
+    private final DepthTree sellDepth = new DepthTree();
+    private final HashMap<Long, Long> sellQuantityByShareholder = new HashMap<>();
 
-    public OrderBook() {
-        buyQueue = new LinkedList<>();
-        sellQueue = new LinkedList<>();
+    public static OrderBook of(OrderBookStorage storage) {
+        return storage == OrderBookStorage.COLUMNAR ? new ColumnarOrderBook() : new LinkedOrderBook();
     }
 
-    public void enqueue(Order order) {
-        List<Order> queue = getQueue(order.getSide());
-        ListIterator<Order> it = queue.listIterator();
-        while (it.hasNext()) {
-            if (order.queuesBefore(it.next())) {
-                it.previous();
-                break;
-            }
-        }
-        order.queue();
-        it.add(order);
-    }
+    public abstract void enqueue(Order order);
 
-    public LinkedList<Order> getQueue(Side side) {
-        return side == Side.BUY ? buyQueue : sellQueue;
-    }
+    public abstract void putBack(Order order);
 
-    public Order findByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        for (Order order : queue) {
-            if (order.getOrderId() == orderId)
-                return order;
-        }
-        return null;
-    }
+    public abstract LinkedList<Order> getQueue(Side side);
 
-    public boolean hasByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        for (Order order : queue) {
-            if (order.getOrderId() == orderId)
-                return true;
-        }
-        return false;
-    }
+    public abstract LinkedList<Order> getQueueUpTo(Side side, int price);
 
-    public boolean removeByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        var it = queue.listIterator();
-        while (it.hasNext()) {
-            if (it.next().getOrderId() == orderId) {
-                it.remove();
-                return true;
-            }
-        }
-        return false;
-    }
+    public abstract Order findByOrderId(Side side, long orderId);
 
-    public void removeZeroQuantityOrders() {
-        buyQueue.removeIf(order -> order.getQuantity() == 0);
-        sellQueue.removeIf(order -> order.getQuantity() == 0);
-    }
+    public abstract boolean hasByOrderId(Side side, long orderId);
+
+    public abstract boolean removeByOrderId(Side side, long orderId);
+
+    public abstract void removeZeroQuantityOrders();
+
+    public abstract Order matchWithFirst(Order newOrder);
+
+    public abstract boolean hasOrderOfType(Side side);
+
+    public abstract int bestPrice(Side side);
+
+    public abstract int bestQuantity(Side side);
+
+    public abstract void removeFirst(Side side);
 
-    public Order matchWithFirst(Order newOrder) {
-        var queue = getQueue(newOrder.getSide().opposite());
-        if (newOrder.matches(queue.getFirst()))
-            return queue.getFirst();
-        else
-            return null;
+    public abstract int getWorstPrice(Side side);
+
+    public abstract TreeMap<Integer, Long> getDepth(Side side);
+
+    public abstract void syncQuantity(Order order);
+
+    public abstract OrderBook snapshot();
+
+    protected abstract long quantityAtOrBetter(Side side, int price);
+
+    protected abstract long valueOfBest(Side side, int quantity);
+
+    public LinkedList<Order> getBuyQueue() {
+        return getQueue(Side.BUY);
     }
 
-    public void putBack(Order order) {
-        LinkedList<Order> queue = getQueue(order.getSide());
-        order.queue();
-        queue.addFirst(order);
+    public LinkedList<Order> getSellQueue() {
+        return getQueue(Side.SELL);
     }
 
     public void restoreSellOrder(Order sellOrder) {
@@ -92,43 +69,42 @@ public class OrderBook {
         putBack(buyOrder);
     }
 
-    public boolean hasOrderOfType(Side side) {
-        return !getQueue(side).isEmpty();
-    }
-
-    public void removeFirst(Side side) {
-        getQueue(side).removeFirst();
-    }
-
     public int totalSellQuantityByShareholder(Shareholder shareholder) {
-        return sellQueue.stream()
-                .filter(order -> order.getShareholder().equals(shareholder))
-                .mapToInt(Order::getTotalQuantity)
-                .sum();
+        return sellQuantityByShareholder.getOrDefault(shareholder.getShareholderId(), 0L).intValue();
     }
 
     public int totalBuyQuantityByPrice(int price) {
-        return buyQueue.stream()
-                .filter(order -> order.getPrice() >= price)
-                .mapToInt(Order::getTotalQuantity)
-                .sum();
+        if (buyDepth.isEnabled())
+            return (int) (buyDepth.total() - buyDepth.sumAtOrBelow(price - 1));
+        return (int) quantityAtOrBetter(Side.BUY, price);
     }
 
     public int totalSellQuantityByPrice(int price) {
-        return sellQueue.stream()
-                .filter(order -> order.getPrice() <= price)
-                .mapToInt(Order::getTotalQuantity)
-                .sum();
+        if (sellDepth.isEnabled())
+            return (int) sellDepth.sumAtOrBelow(price);
+        return (int) quantityAtOrBetter(Side.SELL, price);
     }
 
-    public OrderBook snapshot() {
-        OrderBook copy = new OrderBook();
-        for (Order order : buyQueue)
-            copy.enqueue(order.snapshot());
+    public boolean hasIndexedDepth() {
+        return buyDepth.isEnabled() && sellDepth.isEnabled();
+    }
 
-        for (Order order : sellQueue)
-            copy.enqueue(order.snapshot());
+    public int quantityToMatch(Order order) {
+        int available = order.getSide() == Side.BUY ? totalSellQuantityByPrice(order.getPrice())
+                : totalBuyQuantityByPrice(order.getPrice());
+        return Math.min(order.getQuantity(), available);
+    }
+
+    public long valueToMatch(Order order) {
+        return valueOfBest(order.getSide().opposite(), quantityToMatch(order));
+    }
 
-        return copy;
+    protected void account(Side side, int price, long shareholderId, long delta) {
+        if (delta == 0)
+            return;
+        (side == Side.BUY ? buyDepth : sellDepth).add(price, delta);
+        if (side == Side.SELL)
+            sellQuantityByShareholder.merge(shareholderId, delta,
+                    (current, change) -> current + change == 0 ? null : current + change);
     }
 }
@@ -0,0 +1,111 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.Arrays;
+
+class OrderIdIndex {
+    static final int MISSING = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    OrderIdIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int slot = find(key);
+        return slot < 0 ? MISSING : values[slot];
+    }
+
+    boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    void put(long key, int value) {
+        if ((size + 1) * 4L > keys.length * 3L)
+            resize(keys.length * 2);
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    int remove(long key) {
+        int slot = find(key);
+        if (slot < 0)
+            return MISSING;
+        int value = values[slot];
+        used[slot] = false;
+        size--;
+        shiftBack(slot);
+        return value;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private void shiftBack(int empty) {
+        int mask = keys.length - 1;
+        int slot = (empty + 1) & mask;
+        while (used[slot]) {
+            int home = slotOf(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - empty) & mask)) {
+                keys[empty] = keys[slot];
+                values[empty] = values[slot];
+                used[empty] = true;
+                used[slot] = false;
+                empty = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int find(long key) {
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return -1;
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldUsed[i])
+                put(oldKeys[i], oldValues[i]);
+    }
+}
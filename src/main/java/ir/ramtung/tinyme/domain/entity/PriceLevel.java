@@ -0,0 +1,130 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class PriceLevel implements Iterable<Order> {
+    @Getter
+    private int price;
+    private Node head;
+    private Node tail;
+    @Getter
+    private int size;
+    @Getter
+    private long totalQuantity;
+
+    static final class Node {
+        final int slot;
+        Order order;
+        PriceLevel level;
+        Node prev;
+        Node next;
+        int quantity;
+
+        Node(int slot) {
+            this.slot = slot;
+        }
+
+        Node reset(Order order, PriceLevel level) {
+            this.order = order;
+            this.level = level;
+            this.quantity = 0;
+            return this;
+        }
+    }
+
+    public PriceLevel(int price) {
+        this.price = price;
+    }
+
+    PriceLevel reset(int price) {
+        this.price = price;
+        return this;
+    }
+
+    Node addLast(Order order, Node node) {
+        node.reset(order, this);
+        if (tail == null)
+            head = node;
+        else {
+            tail.next = node;
+            node.prev = tail;
+        }
+        tail = node;
+        size++;
+        return node;
+    }
+
+    Node addFirst(Order order, Node node) {
+        node.reset(order, this);
+        if (head == null)
+            tail = node;
+        else {
+            head.prev = node;
+            node.next = head;
+        }
+        head = node;
+        size++;
+        return node;
+    }
+
+    void unlink(Node node) {
+        if (node.prev == null)
+            head = node.next;
+        else
+            node.prev.next = node.next;
+        if (node.next == null)
+            tail = node.prev;
+        else
+            node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        node.order = null;
+        node.level = null;
+        size--;
+    }
+
+    long account(Node node, int quantity) {
+        long delta = quantity - node.quantity;
+        node.quantity = quantity;
+        totalQuantity += delta;
+        return delta;
+    }
+
+    Node firstNode() {
+        return head;
+    }
+
+    public Order getFirst() {
+        if (head == null)
+            throw new NoSuchElementException();
+        return head.order;
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    @Override
+    public Iterator<Order> iterator() {
+        return new Iterator<>() {
+            private Node current = head;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public Order next() {
+                if (current == null)
+                    throw new NoSuchElementException();
+                Order order = current.order;
+                current = current.next;
+                return order;
+            }
+        };
+    }
+}
@@ -59,7 +59,8 @@ public class Security {
                     .entryTime(enterOrderRq.getEntryTime())
                     .status(OrderStatus.FirstEntry)
                     .minimumExecutionQuantity(enterOrderRq.getMinimumExecutionQuantity())
-                    .stopPrice(enterOrderRq.getStopPrice()).build();
+                    .stopPrice(stopPriceOf(enterOrderRq))
+                    .trailingOffset(enterOrderRq.getTrailingOffset()).build();
         else
             return IcebergOrder.builder()
                     .orderId(enterOrderRq.getOrderId())
@@ -76,6 +77,14 @@ public class Security {
                     .build();
     }
 
+    private int stopPriceOf(EnterOrderRq enterOrderRq) {
+        if (!enterOrderRq.isTrailingStopOrderRq())
+            return enterOrderRq.getStopPrice();
+        if (enterOrderRq.getSide() == Side.BUY)
+            return lastTradePrice + enterOrderRq.getTrailingOffset();
+        return lastTradePrice - enterOrderRq.getTrailingOffset();
+    }
+
     public MatchResult handleEnterOrder(Order order, long reqId, Matcher matcher){
         MatchResult result = matcher.execute(order, lastTradePrice, this.state);
         handleAcceptingState(result, order, reqId);
@@ -91,7 +100,7 @@ public class Security {
     public void deleteOrder(DeleteOrderRq deleteOrderRq) throws InvalidRequestException {
         Order order = queueInfo.findOrder(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
         errorControl.verifyDelete(order, this.isAuction());
-        handleCredit(order, order.getSide(), true);
+        refundCredit(order);
 
         queueInfo.deleteOrder(order, deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
     }
@@ -109,70 +118,57 @@ public class Security {
                 || updateOrderRq.getPrice() != order.getPrice()
                 || ((order instanceof IcebergOrder icebergOrder) && (icebergOrder.getPeakSize() < updateOrderRq.getPeakSize()));
 
-        handleCredit(order, updateOrderRq.getSide(), true);
-        Order originalOrder = order.snapshot();
+        UndoLog undoLog = new UndoLog();
+        long originalValue = order.getValue();
+        if (losesPriority)
+            undoLog.remove(getOrderBook(), order);
+        undoLog.recordState(order, getOrderBook());
         order.updateFromRequest(updateOrderRq);
         if (!losesPriority) {
-            handleCredit(order, updateOrderRq.getSide(), false);
+            getOrderBook().syncQuantity(order);
+            if (updateOrderRq.getSide() == Side.BUY)
+                undoLog.increaseCredit(order.getBroker(), originalValue - order.getValue());
             return MatchResult.executed(null, List.of());
         }
         else
             order.markAsNew();
 
-        getOrderBook().removeByOrderId(updateOrderRq.getSide(), updateOrderRq.getOrderId());
-        MatchResult matchResult = matcher.execute(order, lastTradePrice, this.state);
-        if (matchResult.outcome() != MatchingOutcome.EXECUTED) {
-            getOrderBook().enqueue(originalOrder);
-            handleCredit(originalOrder, updateOrderRq.getSide(), false);
-        }
+        if (updateOrderRq.getSide() == Side.BUY)
+            undoLog.holdCredit(order.getBroker(), originalValue);
+        MatchResult matchResult = matcher.execute(order, lastTradePrice, this.state, undoLog);
+        if (matchResult.outcome() == MatchingOutcome.EXECUTED)
+            undoLog.releaseHeldCredit();
+        else if (matchResult.outcome() != MatchingOutcome.ACCEPTED)
+            undoLog.rollback();
         return matchResult;
     }
 
-    private void handleCredit(Order order, Side side, boolean increase) {
-        if (side == Side.BUY)
-            if (increase)
-                order.getBroker().increaseCreditBy(order.getValue());
-            else
-                order.getBroker().decreaseCreditBy(order.getValue());
+    private void refundCredit(Order order) {
+        if (order.getSide() == Side.BUY)
+            order.getBroker().increaseCreditBy(order.getValue());
     }
 
     public void handleDisabledOrders() {
-        handleEachDisabled(queueInfo.getBuyDisabledOrders(), queueInfo.getBuyEnabledOrders(), true);
-        handleEachDisabled(queueInfo.getSellDisabledOrders(), queueInfo.getSellEnabledOrders(), false);
-    }
-
-    private boolean isActivationReady(boolean isBuySide, Order disabled){
-        return (
-                (isBuySide &&
-                        disabled.getStopPrice() <= lastTradePrice)
-                        ||
-                        (!isBuySide &&
-                                disabled.getStopPrice() >= lastTradePrice)
-        );
-    }
-
-    private void enableTheRq(Order disabled, EnterOrderRepo toRemove,
-                             EnterOrderRepo enabledRqs, long disabledKey){
-        toRemove.addOrder(disabled, disabledKey);
-        if (!enabledRqs.existByRqId(disabled.getOrderId()))
-            enabledRqs.addOrder(disabled, disabledKey);
-    }
-
-    private void handleEachDisabled(EnterOrderRepo disabledRqs,
-                                    EnterOrderRepo enabledRqs, boolean isBuySide){
-        if(disabledRqs != null) {
-            EnterOrderRepo toRemove = new EnterOrderRepo(true);
-            for (long disabledKey : disabledRqs.allOrderKeysSortedByStopPrice()) {
-                if (isActivationReady(isBuySide, disabledRqs.findByRqId(disabledKey)))
-                    enableTheRq(disabledRqs.findByRqId(disabledKey),
-                            toRemove, enabledRqs, disabledKey);
-            }
-            for(long removeKey : toRemove.allOrderKeysSortedByStopPrice())
-                disabledRqs.removeByRqId(removeKey);
+        handleEachDisabled(queueInfo.getBuyDisabledOrders(), queueInfo.getBuyEnabledOrders());
+        handleEachDisabled(queueInfo.getSellDisabledOrders(), queueInfo.getSellEnabledOrders());
+    }
+
+    private void handleEachDisabled(EnterOrderRepo disabledRqs, EnterOrderRepo enabledRqs){
+        if (!disabledRqs.isTriggeredBy(lastTradePrice))
+            return;
+        for (long disabledKey : disabledRqs.keysTriggeredBy(lastTradePrice)) {
+            Order disabled = disabledRqs.findByRqId(disabledKey);
+            if (disabled.isTrailingStopOrder())
+                disabled.fixStopPrice(disabledRqs.stopPriceOf(disabledKey));
+            if (!enabledRqs.existByRqId(disabledKey))
+                enabledRqs.addOrder(disabled, disabledKey);
+            disabledRqs.removeByRqId(disabledKey);
         }
     }
     public void updateLastTradePrice(int lastTradePrice){
         this.lastTradePrice = lastTradePrice;
+        queueInfo.getBuyDisabledOrders().trail(lastTradePrice);
+        queueInfo.getSellDisabledOrders().trail(lastTradePrice);
     }
 
     public void removeEnabledOrder(long rqId, Side side){
@@ -183,43 +179,23 @@ public class Security {
         return Math.min(getOrderBook().totalBuyQuantityByPrice(price), getOrderBook().totalSellQuantityByPrice(price));
     }
 
-    private boolean isNewOneCloser(int newOne, int oldOne, int target){
-        return(Math.abs(newOne - target) < Math.abs(oldOne - target));
-    }
-
     private Tuple<Integer, Integer> calcOpeningPriceForEmptyQueue(){
         this.openingPrice = 0;
         return(new Tuple<>(0, 0));
     }
     public Tuple<Integer, Integer> calculateOpeningPrice(){
-        if(getOrderBook().getBuyQueue().isEmpty() || getOrderBook().getSellQueue().isEmpty())
+        if(!getOrderBook().hasOrderOfType(Side.BUY) || !getOrderBook().hasOrderOfType(Side.SELL))
             return(calcOpeningPriceForEmptyQueue());
 
-        Tuple<Integer, Integer> priceQuantity = new Tuple<>(
-                this.lastTradePrice, getQuantityBasedOnPrice(this.lastTradePrice));
-        int min = getOrderBook().getBuyQueue().getLast().getPrice();
-        int max = getOrderBook().getSellQueue().getLast().getPrice();
-
-        for (int cur = min; cur <= max; cur++) {
-            int currentQuantity = getQuantityBasedOnPrice(cur);
-
-            if (currentQuantity > priceQuantity.getVal2() ||
-                    (currentQuantity == priceQuantity.getVal2()) && (isNewOneCloser(cur, priceQuantity.getVal1(), this.lastTradePrice)))
-                priceQuantity = new Tuple<>(cur, currentQuantity);
-        }
-
+        Tuple<Integer, Integer> priceQuantity = new OpeningPriceCalculator(tickSize, lastTradePrice)
+                .calculate(getOrderBook());
         this.openingPrice = priceQuantity.getVal1();
         return priceQuantity;
     }
 
     public MatchResult openAuction(Matcher matcher) {
         this.openingPrice = calculateOpeningPrice().getVal1();
-        OrderBook candidateOrders = queueInfo.getCandidateOrders(this.openingPrice);
-        OrderBook candidateOrdersCopy = candidateOrders.snapshot();
-
-        MatchResult result = matcher.auctionMatch(candidateOrders, this.openingPrice);
-        queueInfo.syncRemovedOrders(candidateOrders, candidateOrdersCopy, Side.BUY);
-        queueInfo.syncRemovedOrders(candidateOrders, candidateOrdersCopy, Side.SELL);
+        MatchResult result = matcher.auctionMatch(getOrderBook(), this.openingPrice);
 
         result.trades().forEach(Trade::payBuyerDebt);
         updateLastTradePrice(this.openingPrice);
@@ -0,0 +1,134 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+
+public class UndoLog {
+    private final ArrayList<Runnable> entries = new ArrayList<>();
+    private final boolean recording;
+    private Broker heldBroker;
+    private long heldCredit;
+
+    public UndoLog() {
+        this(true);
+    }
+
+    private UndoLog(boolean recording) {
+        this.recording = recording;
+    }
+
+    public static UndoLog notRecording() {
+        return new UndoLog(false);
+    }
+
+    public int mark() {
+        return entries.size();
+    }
+
+    public void rollbackTo(int mark) {
+        for (int i = entries.size() - 1; i >= mark; i--)
+            entries.remove(i).run();
+    }
+
+    public void rollback() {
+        rollbackTo(0);
+    }
+
+    public void recordState(Order order, OrderBook orderBook) {
+        if (!recording)
+            return;
+        int quantity = order.quantity;
+        int price = order.price;
+        int stopPrice = order.stopPrice;
+        int trailingOffset = order.trailingOffset;
+        OrderStatus status = order.status;
+        if (order instanceof IcebergOrder icebergOrder) {
+            int peakSize = icebergOrder.peakSize;
+            int displayedQuantity = icebergOrder.displayedQuantity;
+            entries.add(() -> {
+                icebergOrder.peakSize = peakSize;
+                icebergOrder.displayedQuantity = displayedQuantity;
+                restore(order, quantity, price, stopPrice, trailingOffset, status, orderBook);
+            });
+        }
+        else
+            entries.add(() -> restore(order, quantity, price, stopPrice, trailingOffset, status, orderBook));
+    }
+
+    private static void restore(Order order, int quantity, int price, int stopPrice, int trailingOffset, OrderStatus status, OrderBook orderBook) {
+        order.quantity = quantity;
+        order.price = price;
+        order.stopPrice = stopPrice;
+        order.trailingOffset = trailingOffset;
+        order.status = status;
+        if (orderBook != null)
+            orderBook.syncQuantity(order);
+    }
+
+    public void removeFirst(OrderBook orderBook, Order order) {
+        orderBook.removeFirst(order.getSide());
+        if (recording)
+            entries.add(() -> orderBook.putBack(order));
+    }
+
+    public void remove(OrderBook orderBook, Order order) {
+        if (orderBook.removeByOrderId(order.getSide(), order.getOrderId()) && recording)
+            entries.add(() -> orderBook.enqueue(order));
+    }
+
+    public void enqueue(OrderBook orderBook, Order order) {
+        orderBook.enqueue(order);
+        if (recording)
+            entries.add(() -> orderBook.removeByOrderId(order.getSide(), order.getOrderId()));
+    }
+
+    public void increaseCredit(Broker broker, long amount) {
+        broker.increaseCreditBy(amount);
+        if (recording)
+            entries.add(() -> broker.decreaseCreditBy(amount));
+    }
+
+    public void holdCredit(Broker broker, long amount) {
+        heldBroker = broker;
+        heldCredit = amount;
+    }
+
+    public void releaseHeldCredit() {
+        if (heldBroker != null && heldCredit > 0)
+            heldBroker.increaseCreditBy(heldCredit);
+        heldCredit = 0;
+    }
+
+    private long heldFor(Broker broker) {
+        return broker == heldBroker ? heldCredit : 0;
+    }
+
+    public boolean hasEnoughCredit(Broker broker, long amount) {
+        return broker.hasEnoughCredit(amount - heldFor(broker));
+    }
+
+    public boolean tryDecreaseCredit(Broker broker, long amount) {
+        long fromHold = Math.min(heldFor(broker), amount);
+        long fromBroker = amount - fromHold;
+        if (!broker.tryDecreaseCreditBy(fromBroker))
+            return false;
+        heldCredit -= fromHold;
+        if (recording)
+            entries.add(() -> {
+                broker.increaseCreditBy(fromBroker);
+                heldCredit += fromHold;
+            });
+        return true;
+    }
+
+    public void incPosition(Shareholder shareholder, Security security, int amount) {
+        shareholder.incPosition(security, amount);
+        if (recording)
+            entries.add(() -> shareholder.decPosition(security, amount));
+    }
+
+    public void decPosition(Shareholder shareholder, Security security, int amount) {
+        shareholder.decPosition(security, amount);
+        if (recording)
+            entries.add(() -> shareholder.incPosition(security, amount));
+    }
+}
@@ -0,0 +1,37 @@
+package ir.ramtung.tinyme.domain.service;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CascadeMetrics {
+    private final LongAdder cascades = new LongAdder();
+    private final LongAdder activations = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+    private final LongAccumulator longest = new LongAccumulator(Math::max, 0);
+
+    void record(int length, boolean exhausted) {
+        if (length == 0)
+            return;
+        cascades.increment();
+        activations.add(length);
+        longest.accumulate(length);
+        if (exhausted)
+            truncated.increment();
+    }
+
+    public long getCascades() {
+        return cascades.sum();
+    }
+
+    public long getActivations() {
+        return activations.sum();
+    }
+
+    public long getTruncated() {
+        return truncated.sum();
+    }
+
+    public long getLongest() {
+        return longest.get();
+    }
+}
@@ -33,6 +33,8 @@ public class SecurityErrorControl {
             throw new InvalidRequestException(Message.CANNOT_CHANGE_MINIMUM_EXEC_QUANTITY);
         if (!order.isStopLimitOrder() && updateOrderRq.isStopLimitOrderRq())
             throw new InvalidRequestException(Message.CANNOT_CHANGE_STOP_PRICE_FOR_ACTIVATED);
+        if (order.isTrailingStopOrder() || updateOrderRq.isTrailingStopOrderRq())
+            throw new InvalidRequestException(Message.CANNOT_UPDATE_TRAILING_STOP_ORDER);
 
         verifyStopPrice(order, updateOrderRq);
     }
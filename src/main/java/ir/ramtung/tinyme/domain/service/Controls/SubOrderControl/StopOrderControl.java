@@ -1,5 +1,6 @@
 package ir.ramtung.tinyme.domain.service.Controls.SubOrderControl;
 
+import ir.ramtung.tinyme.domain.entity.Security;
 import ir.ramtung.tinyme.messaging.Message;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
 import ir.ramtung.tinyme.repository.BrokerRepository;
@@ -21,6 +22,10 @@ public class StopOrderControl extends CommonOrderControl {
 
         if (enterOrderRq.getStopPrice() < 0)
             errors.add(Message.STOP_PRICE_CANNOT_BE_NEGATIVE);
+        if (enterOrderRq.getTrailingOffset() < 0)
+            errors.add(Message.TRAILING_OFFSET_NOT_POSITIVE);
+        if (enterOrderRq.isTrailingStopOrderRq() && enterOrderRq.getStopPrice() != 0)
+            errors.add(Message.TRAILING_STOP_ORDER_CANNOT_HAVE_STOP_PRICE);
         if (enterOrderRq.hasMinimumExecutionQuantity())
             errors.add(Message.STOP_ORDER_CANNOT_HAVE_MINIMUM_EXEC_QUANTITY);
         if (enterOrderRq.isIcebergOrderRq())
@@ -28,4 +33,12 @@ public class StopOrderControl extends CommonOrderControl {
 
         return errors;
     }
+
+    @Override
+    public List<String> addSecurityErrors(EnterOrderRq enterOrderRq, Security security) {
+        List<String> errors = super.addSecurityErrors(enterOrderRq, security);
+        if (enterOrderRq.isTrailingStopOrderRq() && security.getLastTradePrice() == 0)
+            errors.add(Message.TRAILING_STOP_ORDER_NEEDS_REFERENCE_PRICE);
+        return errors;
+    }
 }
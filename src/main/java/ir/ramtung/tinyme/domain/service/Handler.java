@@ -12,7 +12,10 @@ import ir.ramtung.tinyme.repository.BrokerRepository;
 import ir.ramtung.tinyme.repository.EnterOrderRepo;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.ArrayDeque;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 abstract class Handler {
@@ -21,6 +24,9 @@ abstract class Handler {
         ShareholderRepository shareholderRepository;
         EventPublisher eventPublisher;
         Matcher matcher;
+        private final CascadeMetrics cascadeMetrics = new CascadeMetrics();
+        private final Logger log = Logger.getLogger(this.getClass().getName());
+        private int cascadeBudget = 10_000;
 
         Handler(SecurityRepository securityRepository, BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, EventPublisher eventPublisher, Matcher matcher) {
             this.securityRepository = securityRepository;
@@ -30,22 +36,51 @@ abstract class Handler {
             this.matcher = matcher;
         }
 
-    void executeEnabledOrders(Security security){
-        execBuyAndSell(security, Side.BUY);
-        execBuyAndSell(security, Side.SELL);
+    @Value("${stopCascadeBudget:10000}")
+    public void setCascadeBudget(int cascadeBudget) {
+        this.cascadeBudget = cascadeBudget;
     }
 
-    void execBuyAndSell(Security security, Side side){
-        EnterOrderRepo orders = security.getQueueInfo().getEnabledOrders(side).makeCopy();
-        if(orders != null) {
-            for (long reqId : orders.allOrderKeysSortedByStopPrice())
-                executeTheEnabled(orders.findByRqId(reqId), reqId, side);
-        }
+    public CascadeMetrics getCascadeMetrics() {
+        return cascadeMetrics;
+    }
+
+    void executeEnabledOrders(Security security){
+        boolean exhausted;
+        do {
+            int activations = execBuyAndSell(security, Side.BUY, 0);
+            activations = execBuyAndSell(security, Side.SELL, activations);
+            exhausted = activations >= cascadeBudget && hasEnabledOrders(security);
+            cascadeMetrics.record(activations, exhausted);
+            if (exhausted) {
+                log.warning("Stop order cascade on " + security.getIsin() + " used its budget of " + activations + " activations; continuing with the next slice");
+                eventPublisher.drainBatch();
+            }
+        } while (exhausted);
+    }
 
-        if(isEnabledOver(side, security))
-            return;
+    private boolean hasEnabledOrders(Security security) {
+        return security.getQueueInfo().getEnabledOrders(Side.BUY).theSize() > 0
+                || security.getQueueInfo().getEnabledOrders(Side.SELL).theSize() > 0;
+    }
 
-        execBuyAndSell(security, side);
+    private int execBuyAndSell(Security security, Side side, int activations){
+        EnterOrderRepo enabled = security.getQueueInfo().getEnabledOrders(side);
+        ArrayDeque<Long> pending = new ArrayDeque<>();
+        while (activations < cascadeBudget) {
+            if (pending.isEmpty()) {
+                if (enabled.theSize() == 0)
+                    break;
+                pending.addAll(enabled.allOrderKeysSortedByStopPrice());
+            }
+            long reqId = pending.poll();
+            Order order = enabled.findByRqId(reqId);
+            if (order == null)
+                continue;
+            executeTheEnabled(order, reqId, side);
+            activations++;
+        }
+        return activations;
     }
 
     void executeTheEnabled(Order order, long reqId, Side side){
@@ -68,12 +103,4 @@ abstract class Handler {
         security.updateLastTradePrice(matchResult.trades().getLast().getPrice());
         security.handleDisabledOrders();
     }
-
-    private boolean isEnabledOver(Side side, Security security){
-        return(
-                (side == Side.BUY && (security.getQueueInfo().getBuyEnabledOrders().theSize() == 0))
-                        ||
-                        (side == Side.SELL && (security.getQueueInfo().getSellEnabledOrders().theSize() == 0))
-        );
-    }
 }
@@ -10,76 +10,125 @@ import java.util.LinkedList;
 
 @Service
 public class Matcher {
-    private MatchingState securityState = MatchingState.CONTINUOUS;
-    private int openingPrice;
-    private OrderBook orderBook;
     @Autowired
     private RollbackControl rollbackControl;
+
+    private record Context(MatchingState securityState, int openingPrice, OrderBook orderBook, UndoLog undoLog) {
+        static Context continuous(Order order, UndoLog undoLog) {
+            return new Context(MatchingState.CONTINUOUS, 0, order.getSecurity().getOrderBook(), undoLog);
+        }
+
+        static Context auction(OrderBook orderBook, int openingPrice) {
+            return new Context(MatchingState.AUCTION, openingPrice, orderBook, UndoLog.notRecording());
+        }
+
+        boolean isContinuous() {
+            return securityState == MatchingState.CONTINUOUS;
+        }
+
+        boolean tradesAt(Side side, int price) {
+            if (isContinuous())
+                return true;
+            return side == Side.SELL ? price <= openingPrice : price >= openingPrice;
+        }
+
+        boolean chargesBuyer(Order order) {
+            return order.getSide() == Side.BUY && isContinuous();
+        }
+    }
+
+    private static UndoLog undoLogFor(Order order) {
+        return order.getMinimumExecutionQuantity() > 0 ? new UndoLog() : UndoLog.notRecording();
+    }
+
     public MatchResult match(Order newOrder) {
+        Context context = Context.continuous(newOrder, undoLogFor(newOrder));
+        int mark = context.undoLog().mark();
+        if (context.chargesBuyer(newOrder)
+                && !context.undoLog().tryDecreaseCredit(newOrder.getBroker(), context.orderBook().valueToMatch(newOrder)))
+            return MatchResult.notEnoughCredit();
+        return match(newOrder, context, mark);
+    }
+
+    private MatchResult match(Order newOrder, Context context, int mark) {
         int prevQuantity = newOrder.getQuantity();
-        if (securityState == MatchingState.CONTINUOUS)
-            this.orderBook = newOrder.getSecurity().getOrderBook();
+        OrderBook orderBook = context.orderBook();
+        UndoLog undoLog = context.undoLog();
+
+        if (newOrder.getMinimumExecutionQuantity() > 0
+                && !newOrder.isMinExecQuantitySatisfiable(orderBook.quantityToMatch(newOrder))) {
+            undoLog.rollbackTo(mark);
+            return MatchResult.notSatisfyMinExec();
+        }
 
         LinkedList<Trade> trades = new LinkedList<>();
+        Side matchingSide = newOrder.getSide().opposite();
 
-        while (canMatch(newOrder)) {
+        while (canMatch(orderBook, newOrder)) {
             Order matchingOrder = orderBook.matchWithFirst(newOrder);
-            if (matchingOrder == null)
+            int matchingPrice = orderBook.bestPrice(matchingSide);
+            if (matchingOrder == null || !context.tradesAt(matchingSide, matchingPrice))
                 break;
-            int tradePrice = (this.securityState == MatchingState.AUCTION) ? openingPrice : matchingOrder.getPrice();
-            Trade trade = new Trade(newOrder.getSecurity(), tradePrice, Math.min(newOrder.getQuantity(),
-                    matchingOrder.getQuantity()), newOrder, matchingOrder);
-
-            if (newOrder.getSide() == Side.BUY && this.securityState == MatchingState.CONTINUOUS) {
-                if (rollbackControl.rollbackIfNecessary(newOrder, trades, trade.getBuy(), trade.getTradedValue()) != null)
-                    return MatchResult.notEnoughCredit();
-                trade.decreaseBuyersCredit();
-            }
-            trade.increaseSellersCredit();
+            int tradePrice = context.isContinuous() ? matchingPrice : context.openingPrice();
+            int tradeQuantity = Math.min(newOrder.getQuantity(), orderBook.bestQuantity(matchingSide));
+            Trade trade = new Trade(newOrder.getSecurity(), tradePrice, tradeQuantity, newOrder, matchingOrder);
+            undoLog.increaseCredit(trade.getSell().getBroker(), trade.getTradedValue());
             trades.add(trade);
-            handleQuantities(newOrder, matchingOrder);
+            handleQuantities(orderBook, undoLog, newOrder, matchingOrder);
         }
-        if (rollbackControl.rollbackMinExecIfNecessary(newOrder, trades, prevQuantity) != null)
+        if (rollbackControl.rollbackMinExecIfNecessary(newOrder, undoLog, mark, prevQuantity) != null)
             return MatchResult.notSatisfyMinExec();
 
         return MatchResult.executed(newOrder, trades);
     }
 
-    public MatchResult auctionMatch(OrderBook candidateOrderBook, int openingPrice) {
+    public MatchResult auctionMatch(OrderBook orderBook, int openingPrice) {
         LinkedList<Trade> trades = new LinkedList<>();
-        this.openingPrice = openingPrice;
-        this.orderBook = candidateOrderBook;
-        for (var buyOrder : candidateOrderBook.getBuyQueue())
-            trades.addAll(execute(buyOrder).trades());
-
-        candidateOrderBook.removeZeroQuantityOrders();
-
+        Context context = Context.auction(orderBook, openingPrice);
+        for (var buyOrder : orderBook.getQueueUpTo(Side.BUY, openingPrice)) {
+            if (!hasMatchWithin(context, buyOrder))
+                break;
+            trades.addAll(execute(buyOrder, context).trades());
+            if (buyOrder.getQuantity() == 0)
+                orderBook.removeByOrderId(Side.BUY, buyOrder.getOrderId());
+        }
         return MatchResult.auctioned(trades);
     }
 
-    public void handleQuantities(Order newOrder, Order matchingOrder) {
+    private boolean hasMatchWithin(Context context, Order order) {
+        if (!canMatch(context.orderBook(), order))
+            return false;
+        Side matchingSide = order.getSide().opposite();
+        return context.orderBook().matchWithFirst(order) != null
+                && context.tradesAt(matchingSide, context.orderBook().bestPrice(matchingSide));
+    }
+
+    private void handleQuantities(OrderBook orderBook, UndoLog undoLog, Order newOrder, Order matchingOrder) {
+        undoLog.recordState(newOrder, null);
+        undoLog.recordState(matchingOrder, orderBook);
         if (newOrder.getQuantity() >= matchingOrder.getQuantity()) {
             newOrder.decreaseQuantity(matchingOrder.getQuantity());
-            orderBook.removeFirst(matchingOrder.getSide());
+            undoLog.removeFirst(orderBook, matchingOrder);
             if (matchingOrder instanceof IcebergOrder icebergOrder) {
                 icebergOrder.decreaseQuantity(matchingOrder.getQuantity());
                 icebergOrder.replenish();
                 if (icebergOrder.getQuantity() > 0)
-                    orderBook.enqueue(icebergOrder);
+                    undoLog.enqueue(orderBook, icebergOrder);
             }
         }
         else {
             matchingOrder.decreaseQuantity(newOrder.getQuantity());
+            orderBook.syncQuantity(matchingOrder);
             newOrder.makeQuantityZero();
         }
     }
 
-    public boolean canMatch(Order order) {
+    public boolean canMatch(OrderBook orderBook, Order order) {
         return orderBook.hasOrderOfType(order.getSide().opposite()) && order.getQuantity() > 0;
     }
 
-    private MatchResult recognizeOutcome(Order order, int lastTradePrice){
-        if (order.getSide() == Side.BUY && !order.getBroker().hasEnoughCredit(order.getValue()))
+    private MatchResult recognizeOutcome(Order order, int lastTradePrice, UndoLog undoLog){
+        if (order.getSide() == Side.BUY && !undoLog.hasEnoughCredit(order.getBroker(), order.getValue()))
             return MatchResult.notEnoughCredit();
 
         if (order.getSide() == Side.BUY && order.getStopPrice() > lastTradePrice)
@@ -92,47 +141,59 @@ public class Matcher {
     }
 
     public MatchResult execute(Order order) {
-        MatchResult result = match(order);
+        return execute(order, Context.continuous(order, undoLogFor(order)));
+    }
+
+    private MatchResult execute(Order order, Context context) {
+        UndoLog undoLog = context.undoLog();
+        int mark = undoLog.mark();
+        if (context.chargesBuyer(order)) {
+            OrderBook orderBook = context.orderBook();
+            long remainderValue = (long) (order.getQuantity() - orderBook.quantityToMatch(order)) * order.getPrice();
+            if (!undoLog.tryDecreaseCredit(order.getBroker(), orderBook.valueToMatch(order) + remainderValue)) {
+                order.markAsNew();
+                return MatchResult.notEnoughCredit();
+            }
+        }
+
+        MatchResult result = match(order, context, mark);
 
         order.markAsNew();
         if (result.outcome() == MatchingOutcome.NOT_ENOUGH_CREDIT || result.outcome() == MatchingOutcome.NOT_SATISFY_MIN_EXEC)
             return result;
 
-        if (result.remainder().getQuantity() > 0) {
-            if (order.getSide() == Side.BUY && this.securityState == MatchingState.CONTINUOUS) {
-                if (rollbackControl.rollbackIfNecessary(order, result.trades(), order) != null)
-                    return MatchResult.notEnoughCredit();
-                order.getBroker().decreaseCreditBy(order.getValue());
-            }
-            order.getSecurity().getOrderBook().enqueue(result.remainder());
-        }
+        if (result.remainder().getQuantity() > 0)
+            undoLog.enqueue(order.getSecurity().getOrderBook(), result.remainder());
         for (Trade trade : result.trades()) {
-            trade.getBuy().getShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
-            trade.getSell().getShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
+            undoLog.incPosition(trade.getBuy().getShareholder(), trade.getSecurity(), trade.getQuantity());
+            undoLog.decPosition(trade.getSell().getShareholder(), trade.getSecurity(), trade.getQuantity());
         }
         return result;
     }
 
     public MatchResult execute(Order order, int lastTradePrice, MatchingState securityState){
-        this.securityState = securityState;
+        return execute(order, lastTradePrice, securityState, undoLogFor(order));
+    }
+
+    public MatchResult execute(Order order, int lastTradePrice, MatchingState securityState, UndoLog undoLog){
         if (securityState == MatchingState.AUCTION) {
             if (order.getQuantity() > 0) {
                 if (order.getSide() == Side.BUY) {
-                    if (!order.getBroker().hasEnoughCredit(order.getValue()))
+                    if (!undoLog.tryDecreaseCredit(order.getBroker(), order.getValue()))
                         return MatchResult.notEnoughCredit();
-                    order.getBroker().decreaseCreditBy(order.getValue());
                 }
-                order.getSecurity().getOrderBook().enqueue(order);
+                undoLog.enqueue(order.getSecurity().getOrderBook(), order);
             }
             return MatchResult.executed(order, new LinkedList<>());
         }
 
         if (order.isStopLimitOrder()) {
-            MatchResult result = recognizeOutcome(order, lastTradePrice);
+            MatchResult result = recognizeOutcome(order, lastTradePrice, undoLog);
             if(result.outcome() != MatchingOutcome.ACTIVATED)
                 return(result);
+            undoLog.recordState(order, null);
             order.setStopPriceZero();
         }
-        return execute(order);
+        return execute(order, Context.continuous(order, undoLog));
     }
 }
@@ -47,13 +47,18 @@ public class MatchingStateHandler extends Handler{
         publishTradeEvents(auctionResult);
     }
 
-    public void handleChangeMatchingState(ChangeMatchingStateRq changeMatchingStateRq) {
-        Security security = securityRepository.findSecurityByIsin(changeMatchingStateRq.getSecurityIsin());
-        MatchingState nextState = changeMatchingStateRq.getMatchingState();
+    private void changeState(Security security, MatchingState nextState) {
         if (security.isAuction())
             handleAuctionChange(nextState, security);
 
         eventPublisher.publish(new SecurityStateChangedEvent(security.getIsin(), nextState));
         security.setState(nextState);
     }
+
+    public void handleChangeMatchingState(ChangeMatchingStateRq changeMatchingStateRq) {
+        Security security = securityRepository.findSecurityByIsin(changeMatchingStateRq.getSecurityIsin());
+        if (security == null)
+            return;
+        changeState(security, changeMatchingStateRq.getMatchingState());
+    }
 }
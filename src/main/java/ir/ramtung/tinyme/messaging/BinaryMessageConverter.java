@@ -0,0 +1,253 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.*;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ir.ramtung.tinyme.messaging.MessagingConfig.TYPE_ID_PROPERTY;
+
+public class BinaryMessageConverter implements MessageConverter {
+    private interface Writer<T> {
+        void write(T value, DataOutput out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    private record Schema<T>(Class<T> type, Writer<T> writer, Reader<T> reader) {
+        void write(Object value, DataOutput out) throws IOException {
+            writer.write(type.cast(value), out);
+        }
+    }
+
+    private final Map<String, Schema<?>> schemas = new HashMap<>();
+
+    public BinaryMessageConverter() {
+        register(EnterOrderRq.class, (rq, out) -> {
+            writeEnum(rq.getRequestType(), out);
+            out.writeLong(rq.getRequestId());
+            writeString(rq.getSecurityIsin(), out);
+            out.writeLong(rq.getOrderId());
+            writeTime(rq.getEntryTime(), out);
+            writeEnum(rq.getSide(), out);
+            out.writeInt(rq.getQuantity());
+            out.writeInt(rq.getPrice());
+            out.writeLong(rq.getBrokerId());
+            out.writeLong(rq.getShareholderId());
+            out.writeInt(rq.getPeakSize());
+            out.writeInt(rq.getMinimumExecutionQuantity());
+            out.writeInt(rq.getStopPrice());
+            out.writeInt(rq.getTrailingOffset());
+        }, in -> {
+            EnterOrderRq rq = new EnterOrderRq();
+            rq.setRequestType(readEnum(OrderEntryType.values(), in));
+            rq.setRequestId(in.readLong());
+            rq.setSecurityIsin(readString(in));
+            rq.setOrderId(in.readLong());
+            rq.setEntryTime(readTime(in));
+            rq.setSide(readEnum(Side.values(), in));
+            rq.setQuantity(in.readInt());
+            rq.setPrice(in.readInt());
+            rq.setBrokerId(in.readLong());
+            rq.setShareholderId(in.readLong());
+            rq.setPeakSize(in.readInt());
+            rq.setMinimumExecutionQuantity(in.readInt());
+            rq.setStopPrice(in.readInt());
+            rq.setTrailingOffset(in.readInt());
+            return rq;
+        });
+        register(DeleteOrderRq.class, (rq, out) -> {
+            out.writeLong(rq.getRequestId());
+            writeString(rq.getSecurityIsin(), out);
+            writeEnum(rq.getSide(), out);
+            out.writeLong(rq.getOrderId());
+            writeTime(rq.getEntryTime(), out);
+        }, in -> new DeleteOrderRq(in.readLong(), readString(in), readEnum(Side.values(), in), in.readLong(), readTime(in)));
+        register(ChangeMatchingStateRq.class, (rq, out) -> {
+            writeString(rq.getSecurityIsin(), out);
+            writeEnum(rq.getMatchingState(), out);
+        }, in -> new ChangeMatchingStateRq(readString(in), readEnum(MatchingState.values(), in)));
+        register(ChangeMarketPhaseRq.class, (rq, out) -> {
+            writeList(rq.getSecurityIsins(), BinaryMessageConverter::writeString, out);
+            writeEnum(rq.getMatchingState(), out);
+        }, in -> new ChangeMarketPhaseRq(readList(BinaryMessageConverter::readString, in), readEnum(MatchingState.values(), in)));
+
+        registerEvent(OrderAcceptedEvent.class, (event, out) -> {
+            out.writeLong(event.getRequestId());
+            out.writeLong(event.getOrderId());
+        }, in -> new OrderAcceptedEvent(in.readLong(), in.readLong()));
+        registerEvent(OrderActivatedEvent.class, (event, out) -> {
+            out.writeLong(event.getRequestId());
+            out.writeLong(event.getOrderId());
+        }, in -> new OrderActivatedEvent(in.readLong(), in.readLong()));
+        registerEvent(OrderDeletedEvent.class, (event, out) -> {
+            out.writeLong(event.getRequestId());
+            out.writeLong(event.getOrderId());
+        }, in -> new OrderDeletedEvent(in.readLong(), in.readLong()));
+        registerEvent(OrderUpdatedEvent.class, (event, out) -> {
+            out.writeLong(event.getRequestId());
+            out.writeLong(event.getOrderId());
+        }, in -> new OrderUpdatedEvent(in.readLong(), in.readLong()));
+        registerEvent(OrderExecutedEvent.class, (event, out) -> {
+            out.writeLong(event.getRequestId());
+            out.writeLong(event.getOrderId());
+            writeList(event.getTrades(), BinaryMessageConverter::writeTrade, out);
+        }, in -> new OrderExecutedEvent(in.readLong(), in.readLong(), readList(BinaryMessageConverter::readTrade, in)));
+        registerEvent(OrderRejectedEvent.class, (event, out) -> {
+            out.writeLong(event.getRequestId());
+            out.writeLong(event.getOrderId());
+            writeList(event.getErrors(), BinaryMessageConverter::writeString, out);
+        }, in -> new OrderRejectedEvent(in.readLong(), in.readLong(), readList(BinaryMessageConverter::readString, in)));
+        registerEvent(OpeningPriceEvent.class, (event, out) -> {
+            writeString(event.getSecurityIsin(), out);
+            out.writeInt(event.getOpeningPrice());
+            out.writeInt(event.getTradableQuantity());
+        }, in -> new OpeningPriceEvent(readString(in), in.readInt(), in.readInt()));
+        registerEvent(SecurityStateChangedEvent.class, (event, out) -> {
+            writeString(event.getSecurityIsin(), out);
+            writeEnum(event.getState(), out);
+        }, in -> new SecurityStateChangedEvent(readString(in), readEnum(MatchingState.values(), in)));
+        registerEvent(TradeEvent.class, (event, out) -> {
+            writeString(event.getSecurityIsin(), out);
+            out.writeInt(event.getPrice());
+            out.writeInt(event.getQuantity());
+            out.writeLong(event.getBuyId());
+            out.writeLong(event.getSellId());
+        }, in -> new TradeEvent(readString(in), in.readInt(), in.readInt(), in.readLong(), in.readLong()));
+    }
+
+    private <T> void register(Class<T> type, Writer<T> writer, Reader<T> reader) {
+        schemas.put(type.getName(), new Schema<>(type, writer, reader));
+    }
+
+    private <T extends Event> void registerEvent(Class<T> type, Writer<T> writer, Reader<T> reader) {
+        register(type, (event, out) -> {
+            writeTime(event.getTime(), out);
+            writer.write(event, out);
+        }, in -> {
+            LocalDateTime time = readTime(in);
+            T event = reader.read(in);
+            event.setTime(time);
+            return event;
+        });
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(encode(object));
+        message.setStringProperty(TYPE_ID_PROPERTY, object.getClass().getName());
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        if (!(message instanceof BytesMessage bytesMessage))
+            throw new MessageConversionException("Expected a bytes message but received " + message.getClass().getName());
+        byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(body);
+        return decode(message.getStringProperty(TYPE_ID_PROPERTY), body);
+    }
+
+    byte[] encode(Object object) {
+        Schema<?> schema = schemaOf(object.getClass().getName());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            schema.write(object, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not encode " + object, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    Object decode(String typeId, byte[] body) {
+        Schema<?> schema = schemaOf(typeId);
+        try {
+            return schema.reader().read(new DataInputStream(new ByteArrayInputStream(body)));
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not decode " + typeId, e);
+        }
+    }
+
+    private Schema<?> schemaOf(String typeId) {
+        Schema<?> schema = schemas.get(typeId);
+        if (schema == null)
+            throw new MessageConversionException("No binary schema for " + typeId);
+        return schema;
+    }
+
+    private static void writeString(String value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTime(LocalDateTime time, DataOutput out) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    private static void writeEnum(Enum<?> value, DataOutput out) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(E[] values, DataInput in) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeTrade(TradeDTO trade, DataOutput out) throws IOException {
+        writeString(trade.securityIsin(), out);
+        out.writeInt(trade.price());
+        out.writeInt(trade.quantity());
+        out.writeLong(trade.buyOrderId());
+        out.writeLong(trade.sellOrderId());
+    }
+
+    private static TradeDTO readTrade(DataInput in) throws IOException {
+        return new TradeDTO(readString(in), in.readInt(), in.readInt(), in.readLong(), in.readLong());
+    }
+
+    private static <T> void writeList(List<T> values, Writer<T> writer, DataOutput out) throws IOException {
+        out.writeInt(values == null ? -1 : values.size());
+        if (values != null)
+            for (T value : values)
+                writer.write(value, out);
+    }
+
+    private static <T> List<T> readList(Reader<T> reader, DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0)
+            return null;
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            values.add(reader.read(in));
+        return values;
+    }
+}
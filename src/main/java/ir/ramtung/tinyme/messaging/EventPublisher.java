@@ -1,25 +1,147 @@
 package ir.ramtung.tinyme.messaging;
 
 import ir.ramtung.tinyme.messaging.event.Event;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.MessageProducer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Component
 public class EventPublisher {
+    private static final long FIRST_RETRY_DELAY_MILLIS = 50;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final JmsTemplate jmsTemplate;
+    private final ThreadPoolExecutor sender;
+    private final ThreadLocal<List<Event>> batch = new ThreadLocal<>();
+    private volatile boolean healthy = true;
+    private volatile boolean stopping;
     @Value("${responseQueue}")
     private String responseQueue;
 
-    public EventPublisher(JmsTemplate jmsTemplate) {
-        this.jmsTemplate = jmsTemplate;
+    @Autowired
+    public EventPublisher(JmsTemplate jmsTemplate, @Value("${publishQueueCapacity:1024}") int queueCapacity) {
+        this.jmsTemplate = new JmsTemplate(jmsTemplate.getConnectionFactory());
+        this.jmsTemplate.setMessageConverter(jmsTemplate.getMessageConverter());
+        this.jmsTemplate.setSessionTransacted(true);
+        sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "event-publisher"), EventPublisher::waitForRoom);
+    }
+
+    public EventPublisher(JmsTemplate jmsTemplate, int queueCapacity, String responseQueue) {
+        this(jmsTemplate, queueCapacity);
+        this.responseQueue = responseQueue;
+    }
+
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor sender) {
+        if (sender.isShutdown())
+            throw new RejectedExecutionException("Event publisher is shut down");
+        try {
+            sender.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the event publisher", e);
+        }
     }
 
     public void publish(Event event) {
-        log.info("Published : " + event);
-        jmsTemplate.convertAndSend(responseQueue, event);
+        List<Event> events = batch.get();
+        if (events != null)
+            events.add(event);
+        else
+            send(List.of(event));
+    }
+
+    public void startBatch() {
+        if (batch.get() == null)
+            batch.set(new ArrayList<>());
+    }
+
+    public void flush() {
+        List<Event> events = batch.get();
+        batch.remove();
+        if (events != null && !events.isEmpty())
+            send(events);
+    }
+
+    public void drainBatch() {
+        List<Event> events = batch.get();
+        if (events != null && !events.isEmpty()) {
+            send(new ArrayList<>(events));
+            events.clear();
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int pendingBatches() {
+        return sender.getQueue().size() + sender.getActiveCount();
+    }
+
+    private void send(List<Event> events) {
+        sender.execute(() -> sendUntilDelivered(events));
+    }
+
+    private void sendUntilDelivered(List<Event> events) {
+        long delay = FIRST_RETRY_DELAY_MILLIS;
+        while (true) {
+            try {
+                sendNow(events);
+                healthy = true;
+                return;
+            } catch (JmsException e) {
+                healthy = false;
+                if (stopping) {
+                    log.log(Level.SEVERE, "Gave up publishing " + events + " on shutdown", e);
+                    return;
+                }
+                log.log(Level.WARNING, "Could not publish " + events.size() + " events, retrying in " + delay + " ms", e);
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.severe("Interrupted while publishing " + events);
+                return;
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+        }
+    }
+
+    private void sendNow(List<Event> events) {
+        jmsTemplate.execute(session -> {
+            try (MessageProducer producer = session.createProducer(session.createQueue(responseQueue))) {
+                for (Event event : events) {
+                    log.info("Published : " + event);
+                    producer.send(jmsTemplate.getMessageConverter().toMessage(event, session));
+                }
+            }
+            session.commit();
+            return null;
+        }, true);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        sender.shutdown();
+        if (!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+            stopping = true;
+            sender.awaitTermination(MAX_RETRY_DELAY_MILLIS * 2, TimeUnit.MILLISECONDS);
+        }
     }
 }
@@ -21,6 +21,10 @@ public class Message {
     public static final String STOP_ORDER_CANNOT_HAVE_MINIMUM_EXEC_QUANTITY = "Stop limit order cannot have minimum execution quantity";
     public static final String STOP_ORDER_CANNOT_BE_ICEBERG_TOO = "Stop limit order cannot be iceberg simultaneously";
     public static final String STOP_PRICE_CANNOT_BE_NEGATIVE = "Stop price cannot be negative";
+    public static final String TRAILING_OFFSET_NOT_POSITIVE = "Trailing stop offset is not-positive";
+    public static final String TRAILING_STOP_ORDER_CANNOT_HAVE_STOP_PRICE = "Trailing stop order cannot have a fixed stop price";
+    public static final String TRAILING_STOP_ORDER_NEEDS_REFERENCE_PRICE = "Trailing stop order cannot be added before the security has a trade price";
+    public static final String CANNOT_UPDATE_TRAILING_STOP_ORDER = "Trailing stop order cannot be updated before activation";
     public static final String CANNOT_CHANGE_STOP_PRICE_FOR_ACTIVATED = "Stop price of activated orders can't change";
     public static final String CANNOT_CHANGE_NOT_ALLOWED_PARAMETERS_BEFORE_ACTIVATION = "One or more parameters cannot be changed before activation";
     public static final String CANNOT_ADD_STOP_ORDER_IN_AUCTION_STATE = "Stop limit order cannot be added when security is in auction state";
@@ -1,31 +1,83 @@
 package ir.ramtung.tinyme.messaging;
 
-import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
-import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.domain.service.MatchingStateHandler;
+import ir.ramtung.tinyme.messaging.request.*;
 import ir.ramtung.tinyme.domain.service.OrderHandler;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Logger;
 
 @Component
 public class RequestDispatcher {
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final OrderHandler orderHandler;
+    private final MatchingStateHandler matchingStateHandler;
+    private final RequestSequencer requestSequencer;
+    private final EventPublisher eventPublisher;
+    private final MessageConverter messageConverter;
 
-    public RequestDispatcher(OrderHandler orderHandler) {
+    public RequestDispatcher(OrderHandler orderHandler, MatchingStateHandler matchingStateHandler, RequestSequencer requestSequencer, EventPublisher eventPublisher, MessageConverter messageConverter) {
         this.orderHandler = orderHandler;
+        this.matchingStateHandler = matchingStateHandler;
+        this.requestSequencer = requestSequencer;
+        this.eventPublisher = eventPublisher;
+        this.messageConverter = messageConverter;
     }
 
-    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.EnterOrderRq'")
-    public void receiveEnterOrderRq(EnterOrderRq enterOrderRq) {
-        log.info("Received message: " + enterOrderRq);
-        orderHandler.handleEnterOrder(enterOrderRq);
+    private CompletableFuture<Void> submit(String securityIsin, Runnable request) {
+        return requestSequencer.submit(securityIsin, () -> {
+            eventPublisher.startBatch();
+            try {
+                request.run();
+            } finally {
+                eventPublisher.flush();
+            }
+        });
     }
 
-    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.DeleteOrderRq'")
-    public void receiveDeleteOrderRq(DeleteOrderRq deleteOrderRq) {
-        log.info("Received message: " + deleteOrderRq);
-        orderHandler.handleDeleteOrder(deleteOrderRq);
+    // Each consumer waits for its request's lane before the message is committed, so securities run in
+    // parallel across ingressConsumers. Producers group requests with SecurityGroups.of(isin) so that the
+    // broker hands each security to a single consumer and keeps its requests in order.
+    @JmsListener(destination = "${requestQueue}", concurrency = "${ingressConsumers:4}")
+    public void receiveRequest(Message message) throws JMSException {
+        Object request = messageConverter.fromMessage(message);
+        log.info("Received message: " + request);
+        try {
+            dispatch(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> dispatch(Object request) {
+        if (request instanceof EnterOrderRq enterOrderRq)
+            return submit(enterOrderRq.getSecurityIsin(), () -> orderHandler.handleEnterOrder(enterOrderRq));
+        if (request instanceof DeleteOrderRq deleteOrderRq)
+            return submit(deleteOrderRq.getSecurityIsin(), () -> orderHandler.handleDeleteOrder(deleteOrderRq));
+        if (request instanceof ChangeMatchingStateRq changeMatchingStateRq)
+            return submit(changeMatchingStateRq.getSecurityIsin(), () -> matchingStateHandler.handleChangeMatchingState(changeMatchingStateRq));
+        if (request instanceof ChangeMarketPhaseRq changeMarketPhaseRq)
+            return dispatchMarketPhase(changeMarketPhaseRq);
+        return CompletableFuture.failedFuture(new IllegalArgumentException("No route for request " + request));
+    }
+
+    private CompletableFuture<Void> dispatchMarketPhase(ChangeMarketPhaseRq changeMarketPhaseRq) {
+        List<CompletableFuture<Void>> changes = new ArrayList<>();
+        for (String isin : new LinkedHashSet<>(changeMarketPhaseRq.getSecurityIsins())) {
+            ChangeMatchingStateRq change = new ChangeMatchingStateRq(isin, changeMarketPhaseRq.getMatchingState());
+            changes.add(submit(isin, () -> matchingStateHandler.handleChangeMatchingState(change)));
+        }
+        return CompletableFuture.allOf(changes.toArray(CompletableFuture[]::new));
     }
 }
@@ -0,0 +1,73 @@
+package ir.ramtung.tinyme.messaging;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Component
+@DependsOn("eventPublisher")
+public class RequestSequencer {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final ThreadPoolExecutor[] lanes;
+
+    @Autowired
+    public RequestSequencer(@Value("${matchingLanes:4}") int laneCount, @Value("${matchingLaneCapacity:1024}") int laneCapacity) {
+        if (laneCount < 1)
+            throw new IllegalArgumentException("At least one matching lane is needed");
+        if (laneCapacity < 1)
+            throw new IllegalArgumentException("Matching lanes need room for at least one request");
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "matching-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(laneCapacity),
+                    task -> new Thread(task, name), RequestSequencer::waitForRoom);
+        }
+    }
+
+    public RequestSequencer(int laneCount) {
+        this(laneCount, 1024);
+    }
+
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown())
+            throw new RejectedExecutionException("Matching lane is shut down");
+        try {
+            lane.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a matching lane", e);
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int laneOf(String securityIsin) {
+        return Math.floorMod(Objects.hashCode(securityIsin), lanes.length);
+    }
+
+    public CompletableFuture<Void> submit(String securityIsin, Runnable request) {
+        CompletableFuture<Void> done = CompletableFuture.runAsync(request, lanes[laneOf(securityIsin)]);
+        done.whenComplete((ignored, e) -> {
+            if (e != null)
+                log.log(Level.SEVERE, "Request on " + securityIsin + " failed", e);
+        });
+        return done;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes)
+            lane.shutdown();
+        for (ExecutorService lane : lanes)
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,17 @@
+package ir.ramtung.tinyme.messaging;
+
+import org.springframework.jms.core.MessagePostProcessor;
+
+public final class SecurityGroups {
+    public static final String GROUP_ID_PROPERTY = "JMSXGroupID";
+
+    private SecurityGroups() {
+    }
+
+    public static MessagePostProcessor of(String securityIsin) {
+        return message -> {
+            message.setStringProperty(GROUP_ID_PROPERTY, securityIsin);
+            return message;
+        };
+    }
+}
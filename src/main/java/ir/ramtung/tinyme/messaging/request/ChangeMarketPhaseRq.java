@@ -0,0 +1,18 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ChangeMarketPhaseRq {
+    private List<String> securityIsins;
+    private MatchingState matchingState;
+
+    public ChangeMarketPhaseRq(List<String> securityIsins, MatchingState matchingState) {
+        this.securityIsins = securityIsins;
+        this.matchingState = matchingState;
+    }
+}
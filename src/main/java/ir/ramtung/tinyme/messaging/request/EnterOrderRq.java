@@ -28,6 +28,7 @@ public class EnterOrderRq {
     private int peakSize;
     private int minimumExecutionQuantity = 0;
     private int stopPrice = 0;
+    private int trailingOffset = 0;
     private EnterOrderRq(OrderEntryType orderEntryType, long requestId, String securityIsin, long orderId, LocalDateTime entryTime, Side side, int quantity, int price, long brokerId, long shareholderId, int peakSize) {
         this.requestType = orderEntryType;
         this.requestId = requestId;
@@ -93,6 +94,15 @@ public class EnterOrderRq {
                 peakSize, minimumExecutionQuantity, stopPrice);
     }
 
+    public static EnterOrderRq createNewTrailingStopOrderRq(long requestId, String securityIsin, long orderId,
+                                                            LocalDateTime entryTime, Side side, int quantity,
+                                                            int price, long brokerId, long shareholderId, int trailingOffset) {
+        EnterOrderRq enterOrderRq = new EnterOrderRq(OrderEntryType.NEW_ORDER, requestId, securityIsin,
+                orderId, entryTime, side, quantity, price, brokerId, shareholderId, 0);
+        enterOrderRq.trailingOffset = trailingOffset;
+        return enterOrderRq;
+    }
+
     public static EnterOrderRq createUpdateOrderRq(long requestId, String securityIsin, long orderId, LocalDateTime entryTime, Side side, int quantity, int price, long brokerId, long shareholderId, int peakSize) {
         return new EnterOrderRq(OrderEntryType.UPDATE_ORDER, requestId, securityIsin, orderId, entryTime, side, quantity, price, brokerId, shareholderId, peakSize);
     }
@@ -110,9 +120,14 @@ public class EnterOrderRq {
                 peakSize, minimumExecutionQuantity, stopPrice);
     }
 
-    public void setStopPriceZero() { stopPrice = 0; }
+    public void setStopPriceZero() {
+        stopPrice = 0;
+        trailingOffset = 0;
+    }
+
+    public boolean isStopLimitOrderRq() { return stopPrice != 0 || trailingOffset != 0; }
 
-    public boolean isStopLimitOrderRq() { return stopPrice != 0; }
+    public boolean isTrailingStopOrderRq() { return trailingOffset != 0; }
 
     public boolean isIcebergOrderRq() { return peakSize != 0; }
 
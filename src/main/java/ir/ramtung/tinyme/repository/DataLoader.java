@@ -44,6 +44,8 @@ public class DataLoader {
     private Resource positionCsvResource;
     @Value("classpath:persistence/orderbook.csv")
     private Resource orderBookCsvResource;
+    @Value("${orderBookStorage:LINKED}")
+    private OrderBookStorage orderBookStorage;
 
     @PostConstruct
     public void loadAll() throws Exception {
@@ -102,11 +104,13 @@ public class DataLoader {
             try (CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
                 String[] line;
                 while ((line = csvReader.readNext()) != null) {
-                    securityRepository.addSecurity(Security.builder()
+                    Security security = Security.builder()
                             .isin(line[0])
                             .tickSize(Integer.parseInt(line[1]))
                             .lotSize(Integer.parseInt(line[2]))
-                            .build());
+                            .build();
+                    security.getQueueInfo().setOrderBook(OrderBook.of(orderBookStorage));
+                    securityRepository.addSecurity(security);
                 }
             }
         }
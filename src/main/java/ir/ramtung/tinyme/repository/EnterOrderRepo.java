@@ -2,15 +2,33 @@ package ir.ramtung.tinyme.repository;
 
 import ir.ramtung.tinyme.domain.entity.Order;
 
-import java.util.HashMap;
-
+import java.time.LocalDateTime;
 import java.util.*;
+
 public class EnterOrderRepo {
     private final HashMap<Long, Order> orderById;
+    private final HashMap<Long, Trigger> triggerByRqId;
+    private final HashMap<Long, Long> rqIdByOrderId;
+    private final TreeSet<Trigger> triggers;
+    private Trigger watermark;
+    private final TrailingStopIndex trailing;
     boolean ascendingStore;
 
+    private record Trigger(int stopPrice, LocalDateTime entryTime, long rqId) {}
+
+    private static final Comparator<LocalDateTime> ENTRY_TIME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
     public EnterOrderRepo(boolean ascendingStore) {
         orderById = new HashMap<>();
+        triggerByRqId = new HashMap<>();
+        rqIdByOrderId = new HashMap<>();
+        Comparator<Trigger> byStopPrice = Comparator.comparingInt(Trigger::stopPrice);
+        if (!ascendingStore)
+            byStopPrice = byStopPrice.reversed();
+        triggers = new TreeSet<>(byStopPrice
+                .thenComparing(Trigger::entryTime, ENTRY_TIME_ORDER)
+                .thenComparingLong(Trigger::rqId));
+        trailing = new TrailingStopIndex(ascendingStore);
         this.ascendingStore = ascendingStore;
     }
 
@@ -19,81 +37,125 @@ public class EnterOrderRepo {
     }
 
     public Order findByOrderId(long orderId) {
-        return orderById.values().stream()
-                .filter(order -> order.getOrderId() == orderId)
-                .findFirst()
-                .orElse(null);
+        Long rqId = rqIdByOrderId.get(orderId);
+        return rqId == null ? null : orderById.get(rqId);
     }
 
     public long getRqIdByOrderId(long orderId){
-        for(long currentRqId : allOrderKeysSortedByStopPrice())
-            if(findByRqId(currentRqId).getOrderId() == orderId)
-                return(currentRqId);
-        return(0);
-    }
-
-    private boolean isRightPlace(Order inHashRq, Order newRq){
-        return(
-                (ascendingStore && (inHashRq.getStopPrice()
-                        > newRq.getStopPrice()))
-                        ||
-                        (!ascendingStore && (inHashRq.getStopPrice()
-                                < newRq.getStopPrice()))
-        );
+        return rqIdByOrderId.getOrDefault(orderId, 0L);
     }
 
     public void addOrder(Order newRq, long reqId) {
-        if(orderById.isEmpty())
-            orderById.put(reqId, newRq);
-        else{
-            for(Order inHashOrder : orderById.values()){
-                if(isRightPlace(inHashOrder, newRq))
-                    break;
-            }
-        }
+        removeByRqId(reqId);
         orderById.put(reqId, newRq);
+        rqIdByOrderId.put(newRq.getOrderId(), reqId);
+        if (newRq.isTrailingStopOrder()) {
+            int offset = newRq.getTrailingOffset();
+            trailing.add(reqId, offset, ascendingStore ? newRq.getStopPrice() - offset : newRq.getStopPrice() + offset);
+            return;
+        }
+        Trigger trigger = new Trigger(newRq.getStopPrice(), newRq.getEntryTime(), reqId);
+        triggerByRqId.put(reqId, trigger);
+        triggers.add(trigger);
+        if (watermark == null || triggers.comparator().compare(trigger, watermark) < 0)
+            watermark = trigger;
     }
 
     public void removeByRqId(long rqId) {
-        if (existByRqId(rqId))
-            orderById.remove(rqId);
+        Order removed = orderById.remove(rqId);
+        if (removed == null)
+            return;
+        rqIdByOrderId.remove(removed.getOrderId(), rqId);
+        if (trailing.contains(rqId)) {
+            trailing.remove(rqId);
+            return;
+        }
+        Trigger trigger = triggerByRqId.remove(rqId);
+        triggers.remove(trigger);
+        if (trigger == watermark)
+            watermark = triggers.isEmpty() ? null : triggers.first();
     }
 
     public void removeByOrderId(long orderId) {
-        orderById.entrySet().removeIf(entry -> entry.getValue().getOrderId() == orderId);
+        Long rqId = rqIdByOrderId.get(orderId);
+        if (rqId != null)
+            removeByRqId(rqId);
     }
 
     public boolean existByRqId(long rqId) { return(orderById.containsKey(rqId)); }
 
     public boolean existByOrderId(long orderId) {
-        return orderById.values().stream().anyMatch(order -> order.getOrderId() == orderId);
+        return rqIdByOrderId.containsKey(orderId);
     }
 
     public int theSize(){ return( orderById.size()); }
 
-    public EnterOrderRepo makeCopy(){
-        EnterOrderRepo cloned = new EnterOrderRepo(ascendingStore);
-        for(long currentKey : orderById.keySet())
-            cloned.addOrder(orderById.get(currentKey), currentKey);
+    public List<Long> allOrderKeysSortedByStopPrice() {
+        return mergeByTrigger(triggers, trailing.keys());
+    }
 
-        return(cloned);
+    public int stopPriceOf(long rqId) {
+        if (trailing.contains(rqId))
+            return trailing.stopPriceOf(rqId);
+        return orderById.get(rqId).getStopPrice();
     }
 
-    public Iterable<? extends Long> allOrderKeysSortedByStopPrice() {
-        List<Long> sortedKeys = new ArrayList<>(orderById.keySet());
-        Comparator<Long> comparator = Comparator
-                .comparing((Long orderId) -> orderById.get(orderId).getStopPrice())
-                .thenComparing(orderId -> orderById.get(orderId).getEntryTime());
+    public void trail(int lastTradePrice) {
+        trailing.trail(lastTradePrice);
+    }
 
-        if (!ascendingStore)
-            comparator = comparator.reversed();
+    public boolean isTriggeredBy(int lastTradePrice) {
+        if (trailing.isTriggeredBy(lastTradePrice))
+            return true;
+        if (watermark == null)
+            return false;
+        return ascendingStore ? watermark.stopPrice() <= lastTradePrice : watermark.stopPrice() >= lastTradePrice;
+    }
+
+    public List<Long> keysTriggeredBy(int lastTradePrice) {
+        return mergeByTrigger(triggers.headSet(new Trigger(lastTradePrice, LocalDateTime.MAX, Long.MAX_VALUE), true),
+                trailing.keysTriggeredBy(lastTradePrice));
+    }
+
+    private List<Long> mergeByTrigger(Collection<Trigger> fixed, List<Long> trailingKeys) {
+        if (trailingKeys.isEmpty())
+            return keysOf(fixed);
+        List<Trigger> trailingTriggers = new ArrayList<>(trailingKeys.size());
+        for (long rqId : trailingKeys)
+            trailingTriggers.add(new Trigger(trailing.stopPriceOf(rqId), orderById.get(rqId).getEntryTime(), rqId));
+        trailingTriggers.sort(triggers.comparator());
+
+        List<Long> keys = new ArrayList<>(fixed.size() + trailingTriggers.size());
+        Iterator<Trigger> fixedTriggers = fixed.iterator();
+        Trigger nextFixed = fixedTriggers.hasNext() ? fixedTriggers.next() : null;
+        for (Trigger nextTrailing : trailingTriggers) {
+            while (nextFixed != null && triggers.comparator().compare(nextFixed, nextTrailing) <= 0) {
+                keys.add(nextFixed.rqId());
+                nextFixed = fixedTriggers.hasNext() ? fixedTriggers.next() : null;
+            }
+            keys.add(nextTrailing.rqId());
+        }
+        while (nextFixed != null) {
+            keys.add(nextFixed.rqId());
+            nextFixed = fixedTriggers.hasNext() ? fixedTriggers.next() : null;
+        }
+        return keys;
+    }
 
-        sortedKeys.sort(comparator);
-        return sortedKeys;
+    private static List<Long> keysOf(Collection<Trigger> triggers) {
+        List<Long> keys = new ArrayList<>(triggers.size());
+        for (Trigger trigger : triggers)
+            keys.add(trigger.rqId());
+        return keys;
     }
 
     public void clear() {
         orderById.clear();
+        triggerByRqId.clear();
+        rqIdByOrderId.clear();
+        triggers.clear();
+        watermark = null;
+        trailing.clear();
     }
 
 }
@@ -0,0 +1,138 @@
+package ir.ramtung.tinyme.repository;
+
+import java.util.*;
+
+class TrailingStopIndex {
+    private final long direction;
+    private final TreeMap<Long, Group> groupsByReference = new TreeMap<>();
+    private final TreeSet<Group> groupsByTrigger = new TreeSet<>(Comparator
+            .comparingLong(Group::trigger).reversed()
+            .thenComparingLong(Group::id));
+    private final HashMap<Long, Group> groupByRqId = new HashMap<>();
+    private final HashMap<Long, Entry> entryByRqId = new HashMap<>();
+    private long nextGroupId;
+
+    private record Entry(int offset, long rqId) {}
+
+    private static final class Group {
+        private final long id;
+        private long reference;
+        private final TreeSet<Entry> entries = new TreeSet<>(Comparator
+                .comparingInt(Entry::offset)
+                .thenComparingLong(Entry::rqId));
+
+        private Group(long id, long reference) {
+            this.id = id;
+            this.reference = reference;
+        }
+
+        long id() {
+            return id;
+        }
+
+        long trigger() {
+            return reference - entries.first().offset();
+        }
+    }
+
+    TrailingStopIndex(boolean buySide) {
+        direction = buySide ? -1 : 1;
+    }
+
+    boolean contains(long rqId) {
+        return entryByRqId.containsKey(rqId);
+    }
+
+    void add(long rqId, int offset, int referencePrice) {
+        remove(rqId);
+        long reference = direction * referencePrice;
+        Group group = groupsByReference.get(reference);
+        if (group == null) {
+            group = new Group(nextGroupId++, reference);
+            groupsByReference.put(reference, group);
+        }
+        else
+            groupsByTrigger.remove(group);
+        Entry entry = new Entry(offset, rqId);
+        group.entries.add(entry);
+        groupsByTrigger.add(group);
+        groupByRqId.put(rqId, group);
+        entryByRqId.put(rqId, entry);
+    }
+
+    void remove(long rqId) {
+        Entry entry = entryByRqId.remove(rqId);
+        if (entry == null)
+            return;
+        Group group = groupByRqId.remove(rqId);
+        groupsByTrigger.remove(group);
+        group.entries.remove(entry);
+        if (group.entries.isEmpty())
+            groupsByReference.remove(group.reference);
+        else
+            groupsByTrigger.add(group);
+    }
+
+    int stopPriceOf(long rqId) {
+        return (int) (direction * (groupByRqId.get(rqId).reference - entryByRqId.get(rqId).offset()));
+    }
+
+    void trail(int lastTradePrice) {
+        long reference = direction * lastTradePrice;
+        if (groupsByReference.isEmpty() || groupsByReference.firstKey() >= reference)
+            return;
+        List<Group> passed = new ArrayList<>(groupsByReference.headMap(reference, true).values());
+        Group merged = passed.get(0);
+        for (Group group : passed)
+            if (group.entries.size() > merged.entries.size())
+                merged = group;
+        for (Group group : passed) {
+            groupsByTrigger.remove(group);
+            groupsByReference.remove(group.reference);
+        }
+        for (Group group : passed) {
+            if (group == merged)
+                continue;
+            for (Entry entry : group.entries)
+                groupByRqId.put(entry.rqId(), merged);
+            merged.entries.addAll(group.entries);
+        }
+        merged.reference = reference;
+        groupsByReference.put(reference, merged);
+        groupsByTrigger.add(merged);
+    }
+
+    boolean isTriggeredBy(int lastTradePrice) {
+        return !groupsByTrigger.isEmpty() && groupsByTrigger.first().trigger() >= direction * lastTradePrice;
+    }
+
+    List<Long> keysTriggeredBy(int lastTradePrice) {
+        long price = direction * lastTradePrice;
+        List<Long> keys = new ArrayList<>();
+        for (Group group : groupsByTrigger) {
+            if (group.trigger() < price)
+                break;
+            for (Entry entry : group.entries) {
+                if (group.reference - entry.offset() < price)
+                    break;
+                keys.add(entry.rqId());
+            }
+        }
+        return keys;
+    }
+
+    List<Long> keys() {
+        List<Long> keys = new ArrayList<>(entryByRqId.size());
+        for (Group group : groupsByTrigger)
+            for (Entry entry : group.entries)
+                keys.add(entry.rqId());
+        return keys;
+    }
+
+    void clear() {
+        groupsByReference.clear();
+        groupsByTrigger.clear();
+        groupByRqId.clear();
+        entryByRqId.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.OrderBookStorage;
+
+class ColumnarMatcherTest extends MatcherTest {
+    @Override
+    OrderBookStorage storage() {
+        return OrderBookStorage.COLUMNAR;
+    }
+}
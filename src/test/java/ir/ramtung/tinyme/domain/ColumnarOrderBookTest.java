@@ -0,0 +1,89 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarOrderBookTest extends OrderBookTest {
+    @Override
+    OrderBookStorage storage() {
+        return OrderBookStorage.COLUMNAR;
+    }
+
+    @Test
+    void returns_views_equal_to_the_enqueued_orders() {
+        Security security = Security.builder().build();
+        Broker broker = Broker.builder().brokerId(1).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        OrderBook orderBook = new ColumnarOrderBook();
+        Order order = IcebergOrder.builder().orderId(1).security(security).side(Side.SELL).quantity(450).price(15450)
+                .broker(broker).shareholder(shareholder).peakSize(200).minimumExecutionQuantity(10).build();
+        orderBook.enqueue(order);
+        Order view = orderBook.findByOrderId(Side.SELL, 1);
+        assertThat(view).isEqualTo(order);
+        assertThat(view.getBroker()).isSameAs(broker);
+        assertThat(view.getShareholder()).isSameAs(shareholder);
+    }
+
+    @Test
+    void builds_a_fresh_view_on_each_read_without_keeping_it() {
+        Security security = Security.builder().build();
+        Broker broker = Broker.builder().brokerId(1).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        OrderBook orderBook = new ColumnarOrderBook();
+        orderBook.enqueue(Order.builder().orderId(1).security(security).side(Side.SELL).quantity(100).price(15450)
+                .broker(broker).shareholder(shareholder).build());
+
+        Order view = orderBook.findByOrderId(Side.SELL, 1);
+        view.decreaseQuantity(40);
+        assertThat(orderBook.getSellQueue().getFirst()).isNotSameAs(view);
+        assertThat(orderBook.findByOrderId(Side.SELL, 1).getQuantity()).isEqualTo(100);
+        assertThat(orderBook.bestQuantity(Side.SELL)).isEqualTo(100);
+
+        orderBook.syncQuantity(view);
+        assertThat(orderBook.matchWithFirst(Order.builder().side(Side.BUY).price(15500).build()).getQuantity()).isEqualTo(60);
+        assertThat(orderBook.bestQuantity(Side.SELL)).isEqualTo(60);
+    }
+
+    @Test
+    void writes_fills_on_views_back_to_the_columns() {
+        Security security = Security.builder().build();
+        Broker broker = Broker.builder().brokerId(1).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        OrderBook orderBook = new ColumnarOrderBook();
+        orderBook.enqueue(IcebergOrder.builder().orderId(1).security(security).side(Side.SELL).quantity(450).price(15450)
+                .broker(broker).shareholder(shareholder).peakSize(200).build());
+        orderBook.enqueue(Order.builder().orderId(2).security(security).side(Side.SELL).quantity(70).price(15450)
+                .broker(broker).shareholder(shareholder).build());
+
+        IcebergOrder first = (IcebergOrder) orderBook.matchWithFirst(Order.builder().side(Side.BUY).price(15500).build());
+        first.decreaseQuantity(150);
+        orderBook.syncQuantity(first);
+        assertThat(orderBook.findByOrderId(Side.SELL, 1).getQuantity()).isEqualTo(50);
+        assertThat(orderBook.totalSellQuantityByPrice(15450)).isEqualTo(300 + 70);
+
+        first.decreaseQuantity(50);
+        orderBook.removeFirst(Side.SELL);
+        first.replenish();
+        orderBook.enqueue(first);
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(2L, 1L);
+        assertThat(orderBook.getSellQueue().getLast().getQuantity()).isEqualTo(200);
+    }
+
+    @Test
+    void reuses_slots_of_removed_orders() {
+        Security security = Security.builder().build();
+        Broker broker = Broker.builder().brokerId(1).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        ColumnarOrderBook orderBook = new ColumnarOrderBook();
+        for (int i = 1; i <= 1000; i++)
+            orderBook.enqueue(Order.builder().orderId(i).security(security).side(Side.BUY).quantity(10).price(100 + i % 7)
+                    .broker(broker).shareholder(shareholder).build());
+        for (int i = 1; i <= 1000; i += 2)
+            orderBook.removeByOrderId(Side.BUY, i);
+        assertThat(orderBook.size()).isEqualTo(500);
+        assertThat(orderBook.totalBuyQuantityByPrice(0)).isEqualTo(5000);
+        assertThat(orderBook.getBuyQueue().getFirst().getPrice()).isEqualTo(106);
+    }
+}
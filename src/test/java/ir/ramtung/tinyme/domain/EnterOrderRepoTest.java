@@ -0,0 +1,122 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.Order;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.repository.EnterOrderRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnterOrderRepoTest {
+    private Security security;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().build();
+        now = LocalDateTime.now();
+    }
+
+    private Order stopOrder(long orderId, Side side, int stopPrice, LocalDateTime entryTime) {
+        return Order.builder().orderId(orderId).security(security).side(side).quantity(10).price(100)
+                .stopPrice(stopPrice).entryTime(entryTime).build();
+    }
+
+    @Test
+    void buy_stops_trigger_from_the_lowest_stop_price_in_entry_order() {
+        EnterOrderRepo buys = new EnterOrderRepo(true);
+        buys.addOrder(stopOrder(1, Side.BUY, 120, now), 1);
+        buys.addOrder(stopOrder(2, Side.BUY, 110, now.plusSeconds(1)), 2);
+        buys.addOrder(stopOrder(3, Side.BUY, 110, now), 3);
+        buys.addOrder(stopOrder(4, Side.BUY, 130, now), 4);
+
+        assertThat(buys.keysTriggeredBy(120)).containsExactly(3L, 2L, 1L);
+        assertThat(buys.keysTriggeredBy(100)).isEmpty();
+        assertThat(buys.allOrderKeysSortedByStopPrice()).containsExactly(3L, 2L, 1L, 4L);
+    }
+
+    @Test
+    void sell_stops_trigger_from_the_highest_stop_price_in_entry_order() {
+        EnterOrderRepo sells = new EnterOrderRepo(false);
+        sells.addOrder(stopOrder(1, Side.SELL, 90, now), 1);
+        sells.addOrder(stopOrder(2, Side.SELL, 95, now.plusSeconds(1)), 2);
+        sells.addOrder(stopOrder(3, Side.SELL, 95, now), 3);
+        sells.addOrder(stopOrder(4, Side.SELL, 80, now), 4);
+
+        assertThat(sells.keysTriggeredBy(90)).containsExactly(3L, 2L, 1L);
+        assertThat(sells.keysTriggeredBy(100)).isEmpty();
+    }
+
+    @Test
+    void trailing_stops_are_ordered_with_fixed_stops_by_stop_price_and_entry_time() {
+        EnterOrderRepo sells = new EnterOrderRepo(false);
+        sells.addOrder(stopOrder(1, Side.SELL, 90, now.plusSeconds(2)), 1);
+        sells.addOrder(Order.builder().orderId(2).security(security).side(Side.SELL).quantity(10).price(80)
+                .stopPrice(95).trailingOffset(5).entryTime(now.plusSeconds(1)).build(), 2);
+        sells.addOrder(stopOrder(3, Side.SELL, 85, now), 3);
+        sells.addOrder(Order.builder().orderId(4).security(security).side(Side.SELL).quantity(10).price(80)
+                .stopPrice(90).trailingOffset(20).entryTime(now).build(), 4);
+
+        assertThat(sells.allOrderKeysSortedByStopPrice()).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(sells.keysTriggeredBy(85)).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(sells.keysTriggeredBy(92)).containsExactly(2L);
+    }
+
+    @Test
+    void replacing_a_request_moves_its_trigger() {
+        EnterOrderRepo buys = new EnterOrderRepo(true);
+        Order order = stopOrder(1, Side.BUY, 120, now);
+        buys.addOrder(order, 1);
+        buys.addOrder(stopOrder(2, Side.BUY, 110, now), 2);
+
+        buys.addOrder(stopOrder(1, Side.BUY, 100, now), 1);
+        buys.removeByRqId(2);
+
+        assertThat(buys.theSize()).isEqualTo(1);
+        assertThat(buys.keysTriggeredBy(105)).containsExactly(1L);
+    }
+
+    @Test
+    void finds_a_parked_order_by_order_id_after_its_request_is_replaced() {
+        EnterOrderRepo buys = new EnterOrderRepo(true);
+        Order order = stopOrder(7, Side.BUY, 120, now);
+        buys.addOrder(order, 1);
+
+        buys.addOrder(order, 2);
+        buys.removeByRqId(1);
+
+        assertThat(buys.findByOrderId(7)).isSameAs(order);
+        assertThat(buys.getRqIdByOrderId(7)).isEqualTo(2);
+        buys.removeByOrderId(7);
+        assertThat(buys.existByOrderId(7)).isFalse();
+        assertThat(buys.theSize()).isZero();
+    }
+
+    @Test
+    void watermark_follows_the_next_stop_to_trigger() {
+        EnterOrderRepo buys = new EnterOrderRepo(true);
+        EnterOrderRepo sells = new EnterOrderRepo(false);
+        assertThat(buys.isTriggeredBy(Integer.MAX_VALUE)).isFalse();
+
+        buys.addOrder(stopOrder(1, Side.BUY, 120, now), 1);
+        buys.addOrder(stopOrder(2, Side.BUY, 110, now), 2);
+        sells.addOrder(stopOrder(3, Side.SELL, 90, now), 3);
+        sells.addOrder(stopOrder(4, Side.SELL, 95, now), 4);
+
+        assertThat(buys.isTriggeredBy(109)).isFalse();
+        assertThat(buys.isTriggeredBy(110)).isTrue();
+        assertThat(sells.isTriggeredBy(96)).isFalse();
+        assertThat(sells.isTriggeredBy(95)).isTrue();
+
+        buys.removeByRqId(2);
+        sells.removeByOrderId(4);
+
+        assertThat(buys.isTriggeredBy(115)).isFalse();
+        assertThat(sells.isTriggeredBy(92)).isFalse();
+        assertThat(sells.isTriggeredBy(90)).isTrue();
+    }
+}
@@ -3,6 +3,7 @@ package ir.ramtung.tinyme.domain;
 import ir.ramtung.tinyme.config.MockedJMSTestConfig;
 import ir.ramtung.tinyme.domain.entity.*;
 import ir.ramtung.tinyme.domain.service.Matcher;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static ir.ramtung.tinyme.domain.entity.Side.BUY;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,7 +33,7 @@ public class MatcherTest {
 
     @BeforeEach
     void setupOrderBook() {
-        security = Security.builder().build();
+        security = newSecurity(null);
         broker = Broker.builder().credit(100_000_000L).build();
         shareholder = Shareholder.builder().build();
         shareholder.incPosition(security, 100_000);
@@ -51,6 +53,16 @@ public class MatcherTest {
         orders.forEach(order -> orderBook.enqueue(order));
     }
 
+    OrderBookStorage storage() {
+        return OrderBookStorage.LINKED;
+    }
+
+    private Security newSecurity(String isin) {
+        Security newSecurity = Security.builder().isin(isin).build();
+        newSecurity.getQueueInfo().setOrderBook(OrderBook.of(storage()));
+        return newSecurity;
+    }
+
     @Test
     void new_sell_order_matches_completely_with_part_of_the_first_buy() {
         Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(100).price(15600)
@@ -114,7 +126,7 @@ public class MatcherTest {
 
     @Test
     void iceberg_order_in_queue_matched_completely_after_three_rounds() {
-        security = Security.builder().build();
+        security = newSecurity(null);
         broker = Broker.builder().build();
         orderBook = security.getOrderBook();
         orders = Arrays.asList(
@@ -144,7 +156,7 @@ public class MatcherTest {
 
     @Test
     void insert_iceberg_and_match_until_quantity_is_less_than_peak_size() {
-        security = Security.builder().isin("TEST").build();
+        security = newSecurity("TEST");
         shareholder.incPosition(security, 1_000);
         security.getOrderBook().enqueue(
                 Order.builder().orderId(1).security(security).side(Side.SELL).quantity(100).price(10)
@@ -162,4 +174,69 @@ public class MatcherTest {
         assertThat(security.getOrderBook().getBuyQueue().get(0).getQuantity()).isEqualTo(20);
     }
 
+    @Test
+    void entering_an_order_in_auction_does_not_affect_matching_of_other_securities() {
+        Security auctionSecurity = newSecurity("AUC");
+        matcher.execute(Order.builder().orderId(20).security(auctionSecurity).side(Side.SELL).quantity(100).price(15000)
+                .broker(broker).shareholder(shareholder).build(), 0, MatchingState.AUCTION);
+
+        Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(100).price(15600)
+                .broker(broker).shareholder(shareholder).build();
+        Trade trade = new Trade(security, 15700, 100, orders.get(0), order);
+        MatchResult result = matcher.match(order);
+
+        assertThat(result.trades()).containsExactly(trade);
+        assertThat(auctionSecurity.getOrderBook().getSellQueue()).hasSize(1);
+    }
+
+    @Test
+    void auction_fills_the_live_book_only_up_to_the_opening_price() {
+        Security auctionSecurity = newSecurity("AUC");
+        shareholder.incPosition(auctionSecurity, 100);
+        Order highBuy = Order.builder().orderId(1).security(auctionSecurity).side(BUY).quantity(10).price(120)
+                .broker(broker).shareholder(shareholder).build();
+        Order lowBuy = Order.builder().orderId(2).security(auctionSecurity).side(BUY).quantity(10).price(100)
+                .broker(broker).shareholder(shareholder).build();
+        Order lowSell = Order.builder().orderId(3).security(auctionSecurity).side(Side.SELL).quantity(10).price(90)
+                .broker(broker).shareholder(shareholder).build();
+        Order highSell = Order.builder().orderId(4).security(auctionSecurity).side(Side.SELL).quantity(10).price(110)
+                .broker(broker).shareholder(shareholder).build();
+        List.of(highBuy, lowBuy, lowSell, highSell).forEach(order -> auctionSecurity.getOrderBook().enqueue(order));
+        Trade trade = new Trade(auctionSecurity, 100, 10, highBuy, lowSell);
+
+        MatchResult result = matcher.auctionMatch(auctionSecurity.getOrderBook(), 100);
+
+        assertThat(result.trades()).containsExactly(trade);
+        assertThat(auctionSecurity.getOrderBook().getBuyQueue()).containsExactly(lowBuy);
+        assertThat(auctionSecurity.getOrderBook().getSellQueue()).containsExactly(highSell);
+    }
+
+    @Test
+    void orders_of_different_securities_are_matched_concurrently() {
+        List<Security> securities = new ArrayList<>();
+        List<CompletableFuture<Integer>> tradeCounts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Security concurrentSecurity = newSecurity("S" + i);
+            Broker concurrentBroker = Broker.builder().brokerId(i).credit(100_000_000L).build();
+            Shareholder concurrentShareholder = Shareholder.builder().shareholderId(i).build();
+            concurrentShareholder.incPosition(concurrentSecurity, 100_000);
+            securities.add(concurrentSecurity);
+            tradeCounts.add(CompletableFuture.supplyAsync(() -> {
+                int trades = 0;
+                for (int j = 0; j < 5_000; j++) {
+                    trades += matcher.execute(Order.builder().orderId(2L * j).security(concurrentSecurity).side(Side.SELL)
+                            .quantity(10).price(100).broker(concurrentBroker).shareholder(concurrentShareholder).build()).trades().size();
+                    trades += matcher.execute(Order.builder().orderId(2L * j + 1).security(concurrentSecurity).side(BUY)
+                            .quantity(10).price(100).broker(concurrentBroker).shareholder(concurrentShareholder).build()).trades().size();
+                }
+                return trades;
+            }));
+        }
+
+        assertThat(tradeCounts).allSatisfy(count -> assertThat(count.join()).isEqualTo(5_000));
+        assertThat(securities).allSatisfy(concurrentSecurity -> {
+            assertThat(concurrentSecurity.getOrderBook().hasOrderOfType(BUY)).isFalse();
+            assertThat(concurrentSecurity.getOrderBook().hasOrderOfType(Side.SELL)).isFalse();
+        });
+    }
 }
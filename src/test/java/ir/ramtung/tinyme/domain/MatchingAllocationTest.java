@@ -0,0 +1,69 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.config.MockedJMSTestConfig;
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.Matcher;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@Tag("benchmark")
+@SpringBootTest
+@Import(MockedJMSTestConfig.class)
+@DirtiesContext
+class MatchingAllocationTest {
+    private static final int ROUNDS = 20_000;
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    @Autowired
+    private Matcher matcher;
+
+    private List<Order> crossingOrders(Security security, Broker broker, Shareholder shareholder, long firstOrderId) {
+        List<Order> incoming = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            incoming.add(Order.builder().orderId(firstOrderId + 2L * i).security(security).side(Side.SELL).quantity(10).price(15750)
+                    .broker(broker).shareholder(shareholder).build());
+            incoming.add(Order.builder().orderId(firstOrderId + 1 + 2L * i).security(security).side(Side.BUY).quantity(10).price(15750)
+                    .broker(broker).shareholder(shareholder).build());
+        }
+        return incoming;
+    }
+
+    private long bytesPerOrder(com.sun.management.ThreadMXBean threads, OrderBookStorage storage) {
+        Security security = Security.builder().build();
+        security.getQueueInfo().setOrderBook(OrderBook.of(storage));
+        Broker broker = Broker.builder().credit(100_000_000_000L).build();
+        Shareholder shareholder = Shareholder.builder().build();
+        shareholder.incPosition(security, 100_000_000);
+
+        crossingOrders(security, broker, shareholder, 0).forEach(matcher::execute);
+        List<Order> incoming = crossingOrders(security, broker, shareholder, 2L * ROUNDS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        incoming.forEach(matcher::execute);
+        return (threads.getCurrentThreadAllocatedBytes() - before) / incoming.size();
+    }
+
+    @Test
+    void reports_matching_allocation_per_order() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        var threads = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (OrderBookStorage storage : OrderBookStorage.values())
+            log.info(String.format("Matching allocation with %s storage: %d bytes per order",
+                    storage, bytesPerOrder(threads, storage)));
+    }
+}
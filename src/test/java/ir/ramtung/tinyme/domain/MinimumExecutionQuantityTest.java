@@ -312,4 +312,39 @@ public class MinimumExecutionQuantityTest {
         verify(eventPublisher).publish(new OrderRejectedEvent(1, 10, List.of(Message.ORDER_MINIMUM_EXEC_QUANTITY_NOT_SATISFY)));
         assertThat(security.getOrderBook().findByOrderId(Side.BUY, 3).getQuantity()).isEqualTo(50);
     }
+
+    @Test
+    void unsatisfiable_min_exec_quantity_is_rejected_without_touching_the_book() {
+        broker2.increaseCreditBy(100_000);
+        Order first = IcebergOrder.builder().orderId(6).security(security).side(Side.SELL).quantity(40).price(580)
+                .broker(broker1).shareholder(shareholder).peakSize(10).build();
+        Order second = Order.builder().orderId(7).security(security).side(Side.SELL).quantity(20).price(590)
+                .broker(broker1).shareholder(shareholder).build();
+        security.getOrderBook().enqueue(first);
+        security.getOrderBook().enqueue(second);
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 10, LocalDateTime.now(), Side.BUY, 100, 590, broker2.getBrokerId(), shareholder.getShareholderId(), 0, 61));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 10, List.of(Message.ORDER_MINIMUM_EXEC_QUANTITY_NOT_SATISFY)));
+        assertThat(security.getOrderBook().getSellQueue()).containsExactly(first, second);
+        assertThat(security.getOrderBook().findByOrderId(Side.SELL, 6)).isSameAs(first);
+        assertThat(first.getQuantity()).isEqualTo(10);
+        assertThat(broker1.getCredit()).isZero();
+        assertThat(broker2.getCredit()).isEqualTo(100_000);
+    }
+
+    @Test
+    void min_exec_quantity_equal_to_available_liquidity_is_accepted() {
+        broker2.increaseCreditBy(100_000);
+        security.getOrderBook().enqueue(IcebergOrder.builder().orderId(6).security(security).side(Side.SELL).quantity(40).price(580)
+                .broker(broker1).shareholder(shareholder).peakSize(10).build());
+        security.getOrderBook().enqueue(Order.builder().orderId(7).security(security).side(Side.SELL).quantity(20).price(590)
+                .broker(broker1).shareholder(shareholder).build());
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 10, LocalDateTime.now(), Side.BUY, 100, 590, broker2.getBrokerId(), shareholder.getShareholderId(), 0, 60));
+
+        verify(eventPublisher).publish(new OrderAcceptedEvent(1, 10));
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+        assertThat(security.getOrderBook().findByOrderId(Side.BUY, 10).getQuantity()).isEqualTo(40);
+    }
 }
@@ -15,6 +15,7 @@ class OrderBookTest {
     @BeforeEach
     void setupOrderBook() {
         security = Security.builder().build();
+        security.getQueueInfo().setOrderBook(OrderBook.of(storage()));
         Broker broker = Broker.builder().build();
         Shareholder shareholder = Shareholder.builder().build();
         shareholder.incPosition(security, 100_000);
@@ -33,6 +34,10 @@ class OrderBookTest {
         orders.forEach(order -> security.getOrderBook().enqueue(order));
     }
 
+    OrderBookStorage storage() {
+        return OrderBookStorage.LINKED;
+    }
+
     @Test
     void finds_the_first_order_by_id() {
         assertThat(security.getOrderBook().findByOrderId(Side.BUY, 1))
@@ -76,4 +81,182 @@ class OrderBookTest {
         orderBook.removeByOrderId(Side.SELL, 10);
         assertThat(orderBook.getSellQueue()).isEqualTo(orders.subList(5, 9));
     }
-}
\ No newline at end of file
+
+    @Test
+    void enqueues_order_behind_orders_with_the_same_price() {
+        OrderBook orderBook = security.getOrderBook();
+        Order order = Order.builder().orderId(11).security(security).side(Side.BUY).quantity(100).price(15450)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        orderBook.enqueue(order);
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L, 3L, 4L, 11L, 5L);
+    }
+
+    @Test
+    void removing_the_whole_best_level_exposes_the_next_level() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.removeFirst(Side.SELL);
+        Order order = Order.builder().orderId(11).security(security).side(Side.BUY).quantity(100).price(15810)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        assertThat(orderBook.matchWithFirst(order)).isEqualTo(orders.get(6));
+    }
+
+    @Test
+    void puts_back_order_at_the_head_of_its_price_level() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.restoreSellOrder(orders.get(7));
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(6L, 8L, 7L, 9L, 10L);
+    }
+
+    @Test
+    void reports_the_worst_price_of_each_side() {
+        assertThat(security.getOrderBook().getWorstPrice(Side.BUY)).isEqualTo(15400);
+        assertThat(security.getOrderBook().getWorstPrice(Side.SELL)).isEqualTo(15820);
+    }
+
+    @Test
+    void removes_an_order_from_the_middle_of_its_price_level() {
+        OrderBook orderBook = security.getOrderBook();
+        Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(100).price(15810)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        orderBook.enqueue(order);
+        assertThat(orderBook.removeByOrderId(Side.SELL, 8)).isTrue();
+        assertThat(orderBook.hasByOrderId(Side.SELL, 8)).isFalse();
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(6L, 7L, 11L, 9L, 10L);
+    }
+
+    @Test
+    void enqueuing_an_order_id_already_in_the_book_replaces_it() {
+        OrderBook orderBook = security.getOrderBook();
+        Order order = Order.builder().orderId(3).security(security).side(Side.BUY).quantity(100).price(15500)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        orderBook.enqueue(order);
+        assertThat(orderBook.findByOrderId(Side.BUY, 3)).isEqualTo(order);
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void reports_cumulative_quantity_at_or_through_a_price() {
+        OrderBook orderBook = security.getOrderBook();
+        assertThat(orderBook.totalBuyQuantityByPrice(15450)).isEqualTo(304 + 43 + 445 + 526);
+        assertThat(orderBook.totalBuyQuantityByPrice(15701)).isZero();
+        assertThat(orderBook.totalSellQuantityByPrice(15810)).isEqualTo(350 + 285 + 800);
+        assertThat(orderBook.totalSellQuantityByPrice(15799)).isZero();
+    }
+
+    @Test
+    void cumulative_quantity_follows_fills_and_removals() {
+        OrderBook orderBook = security.getOrderBook();
+        Order first = orders.get(5);
+        first.decreaseQuantity(50);
+        orderBook.syncQuantity(first);
+        orderBook.removeByOrderId(Side.SELL, 8);
+        assertThat(orderBook.totalSellQuantityByPrice(15810)).isEqualTo(300 + 285);
+        assertThat(orderBook.totalSellQuantityByPrice(20000)).isEqualTo(300 + 285 + 340 + 65);
+    }
+
+    @Test
+    void lists_each_side_up_to_a_price_in_priority_order() {
+        assertThat(security.getOrderBook().getQueueUpTo(Side.BUY, 15450)).containsExactlyElementsOf(orders.subList(0, 4));
+        assertThat(security.getOrderBook().getQueueUpTo(Side.SELL, 15810)).containsExactlyElementsOf(orders.subList(5, 8));
+    }
+
+    @Test
+    void cumulative_quantity_works_for_very_wide_price_ranges() {
+        OrderBook orderBook = security.getOrderBook();
+        Order order = Order.builder().orderId(11).security(security).side(Side.BUY).quantity(7).price(1)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        orderBook.enqueue(order);
+        assertThat(orderBook.totalBuyQuantityByPrice(1)).isEqualTo(304 + 43 + 445 + 526 + 1000 + 7);
+        assertThat(orderBook.totalBuyQuantityByPrice(15500)).isEqualTo(304 + 43);
+    }
+
+    @Test
+    void indexed_depth_comes_back_when_the_price_span_shrinks() {
+        OrderBook orderBook = security.getOrderBook();
+        Order far = Order.builder().orderId(11).security(security).side(Side.BUY).quantity(7).price(5_000_000)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        orderBook.enqueue(far);
+        assertThat(orderBook.hasIndexedDepth()).isFalse();
+        assertThat(orderBook.totalBuyQuantityByPrice(15500)).isEqualTo(7 + 304 + 43);
+
+        orderBook.removeByOrderId(Side.BUY, 11);
+        assertThat(orderBook.hasIndexedDepth()).isTrue();
+        assertThat(orderBook.totalBuyQuantityByPrice(15500)).isEqualTo(304 + 43);
+        assertThat(orderBook.totalBuyQuantityByPrice(1)).isEqualTo(304 + 43 + 445 + 526 + 1000);
+        assertThat(orderBook.totalSellQuantityByPrice(15810)).isEqualTo(350 + 285 + 800);
+    }
+
+    @Test
+    void indexed_depth_follows_a_drifting_price_range() {
+        OrderBook orderBook = security.getOrderBook();
+        for (int i = 1; i <= 5; i++)
+            orderBook.removeByOrderId(Side.BUY, i);
+        for (int i = 0; i < 100; i++) {
+            orderBook.enqueue(Order.builder().orderId(100 + i).security(security).side(Side.BUY).quantity(10)
+                    .price(20_000 + 10_000 * i).broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build());
+            if (i > 0)
+                orderBook.removeByOrderId(Side.BUY, 99 + i);
+        }
+        assertThat(orderBook.hasIndexedDepth()).isTrue();
+        assertThat(orderBook.totalBuyQuantityByPrice(1)).isEqualTo(10);
+        assertThat(orderBook.totalBuyQuantityByPrice(20_000 + 10_000 * 99 + 1)).isZero();
+    }
+
+    @Test
+    void tracks_resting_sell_quantity_of_each_shareholder() {
+        OrderBook orderBook = security.getOrderBook();
+        Shareholder shareholder = orders.get(5).getShareholder();
+        Shareholder another = Shareholder.builder().shareholderId(2).build();
+        Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(100).price(15900)
+                .broker(orders.get(0).getBroker()).shareholder(another).build();
+        orderBook.enqueue(order);
+        orders.get(5).decreaseQuantity(50);
+        orderBook.syncQuantity(orders.get(5));
+        orderBook.removeByOrderId(Side.SELL, 10);
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(300 + 285 + 800 + 340);
+        assertThat(orderBook.totalSellQuantityByShareholder(another)).isEqualTo(100);
+        orderBook.removeFirst(Side.SELL);
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(285 + 800 + 340);
+    }
+
+    @Test
+    void quotes_the_value_of_matching_an_order_against_the_book() {
+        OrderBook orderBook = security.getOrderBook();
+        Order buy = Order.builder().orderId(11).security(security).side(Side.BUY).quantity(500).price(15810)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        assertThat(orderBook.quantityToMatch(buy)).isEqualTo(500);
+        assertThat(orderBook.valueToMatch(buy)).isEqualTo(350L * 15800 + 150L * 15810);
+
+        Order largeBuy = Order.builder().orderId(12).security(security).side(Side.BUY).quantity(2000).price(15810)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        assertThat(orderBook.quantityToMatch(largeBuy)).isEqualTo(350 + 285 + 800);
+        assertThat(orderBook.valueToMatch(largeBuy)).isEqualTo(350L * 15800 + 1085L * 15810);
+
+        Order sell = Order.builder().orderId(13).security(security).side(Side.SELL).quantity(400).price(15500)
+                .broker(orders.get(0).getBroker()).shareholder(orders.get(0).getShareholder()).build();
+        assertThat(orderBook.valueToMatch(sell)).isEqualTo(304L * 15700 + 43L * 15500);
+    }
+
+    @Test
+    void keeps_its_order_id_index_consistent_through_churn() {
+        OrderBook orderBook = security.getOrderBook();
+        Broker broker = orders.get(0).getBroker();
+        Shareholder shareholder = orders.get(0).getShareholder();
+        long firstId = 1_000_000_000_000L;
+        for (int i = 0; i < 2_000; i++)
+            orderBook.enqueue(Order.builder().orderId(firstId + i).security(security).side(Side.BUY).quantity(10)
+                    .price(15000 + i % 5).broker(broker).shareholder(shareholder).build());
+        for (int i = 0; i < 2_000; i += 2)
+            assertThat(orderBook.removeByOrderId(Side.BUY, firstId + i)).isTrue();
+        Order emptied = orderBook.findByOrderId(Side.BUY, firstId + 1);
+        emptied.makeQuantityZero();
+        orderBook.syncQuantity(emptied);
+        orderBook.removeZeroQuantityOrders();
+
+        assertThat(orderBook.hasByOrderId(Side.BUY, firstId)).isFalse();
+        assertThat(orderBook.hasByOrderId(Side.BUY, firstId + 1)).isFalse();
+        assertThat(orderBook.findByOrderId(Side.BUY, firstId + 3).getOrderId()).isEqualTo(firstId + 3);
+        assertThat(orderBook.findByOrderId(Side.BUY, 1).getOrderId()).isEqualTo(1);
+        assertThat(orderBook.getBuyQueue()).hasSize(5 + 999);
+    }
+}
@@ -162,4 +162,30 @@ public class OrderHandlerCreditCheckRollbackTest {
 
         verify(eventPublisher).publish(new OrderRejectedEvent(1, 4, List.of(Message.BUYER_HAS_NOT_ENOUGH_CREDIT)));
     }
+
+    @Test
+    void new_order_from_buyer_with_not_enough_credit_does_not_touch_the_sell_queue() {
+        Broker seller = Broker.builder().brokerId(1).credit(0).build();
+        Broker buyer = Broker.builder().brokerId(2).credit(15 * 500 + 10 * 600 - 1).build();
+        brokerRepository.addBroker(seller);
+        brokerRepository.addBroker(buyer);
+        OrderBook orderBook = security.getOrderBook();
+        Order first = IcebergOrder.builder().orderId(1).security(security).side(Side.SELL).quantity(15).price(500)
+                .broker(seller).shareholder(shareholder).peakSize(5).build();
+        Order second = Order.builder().orderId(2).security(security).side(Side.SELL).quantity(20).price(600)
+                .broker(seller).shareholder(shareholder).build();
+        orderBook.enqueue(first);
+        orderBook.enqueue(second);
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, security.getIsin(), 200, LocalDateTime.now(),
+                Side.BUY, 25, 600, buyer.getBrokerId(), shareholder.getShareholderId(), 0));
+
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L);
+        assertThat(orderBook.findByOrderId(Side.SELL, 1)).isSameAs(first);
+        assertThat(orderBook.findByOrderId(Side.SELL, 1).getQuantity()).isEqualTo(5);
+        assertThat(orderBook.findByOrderId(Side.SELL, 2).getQuantity()).isEqualTo(20);
+        assertThat(seller.getCredit()).isZero();
+        assertThat(buyer.getCredit()).isEqualTo(15 * 500 + 10 * 600 - 1);
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 200, List.of(Message.BUYER_HAS_NOT_ENOUGH_CREDIT)));
+    }
 }
@@ -4,10 +4,14 @@ import ir.ramtung.tinyme.config.MockedJMSTestConfig;
 import ir.ramtung.tinyme.domain.entity.*;
 import ir.ramtung.tinyme.domain.service.MatchingStateHandler;
 import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.BinaryMessageConverter;
 import ir.ramtung.tinyme.messaging.EventPublisher;
 import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.RequestDispatcher;
+import ir.ramtung.tinyme.messaging.RequestSequencer;
 import ir.ramtung.tinyme.messaging.TradeDTO;
 import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.ChangeMarketPhaseRq;
 import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
@@ -17,6 +21,7 @@ import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
@@ -86,6 +91,36 @@ class SecurityMatchingStateTest {
                 order.getShareholder().getShareholderId(), 0, order.getMinimumExecutionQuantity(), order.getStopPrice());
     }
 
+    @Test
+    void market_phase_change_through_the_dispatcher_opens_each_security_in_order() throws InterruptedException {
+        Security other = Security.builder().isin("DEF").build();
+        securityRepository.addSecurity(other);
+        shareholder.incPosition(other, 100_000);
+        List<Security> securities = List.of(security, other);
+        RequestSequencer requestSequencer = new RequestSequencer(4);
+        RequestDispatcher requestDispatcher = new RequestDispatcher(orderHandler, matchingStateHandler, requestSequencer, eventPublisher, new BinaryMessageConverter());
+        for (Security opening : securities) {
+            requestDispatcher.dispatch(new ChangeMatchingStateRq(opening.getIsin(), MatchingState.AUCTION));
+            requestDispatcher.dispatch(EnterOrderRq.createNewOrderRq(1, opening.getIsin(), 1, LocalDateTime.now(), BUY, 100, 170,
+                    buyBroker.getBrokerId(), shareholder.getShareholderId(), 0, 0, 0));
+            requestDispatcher.dispatch(EnterOrderRq.createNewOrderRq(2, opening.getIsin(), 2, LocalDateTime.now(), Side.SELL, 50, 170,
+                    sellBroker.getBrokerId(), shareholder.getShareholderId(), 0, 0, 0));
+        }
+
+        requestDispatcher.dispatch(new ChangeMarketPhaseRq(List.of("ABC", "DEF", "ABC"), MatchingState.CONTINUOUS));
+        requestSequencer.shutdown();
+
+        for (Security opening : securities) {
+            InOrder inOrder = inOrder(eventPublisher);
+            inOrder.verify(eventPublisher).publish(new SecurityStateChangedEvent(opening.getIsin(), MatchingState.AUCTION));
+            inOrder.verify(eventPublisher).publish(new OpeningPriceEvent(opening.getIsin(), 170, 50));
+            inOrder.verify(eventPublisher).publish(new TradeEvent(opening.getIsin(), 170, 50, 1, 2));
+            inOrder.verify(eventPublisher).publish(new SecurityStateChangedEvent(opening.getIsin(), MatchingState.CONTINUOUS));
+            assertThat(opening.getState()).isEqualTo(MatchingState.CONTINUOUS);
+        }
+        verify(eventPublisher, times(1)).publish(new SecurityStateChangedEvent("ABC", MatchingState.CONTINUOUS));
+    }
+
     @Test
     void verify_change_state_event() {
         changeMatchingState(MatchingState.AUCTION);
@@ -12,13 +12,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static ir.ramtung.tinyme.domain.entity.Side.BUY;
 import static ir.ramtung.tinyme.domain.entity.Side.SELL;
 import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
 
 @SpringBootTest
 @Import(MockedJMSTestConfig.class)
@@ -59,6 +66,56 @@ class SecurityTest {
         assertThat(security.getOrderBook().getBuyQueue().get(2).getOrderId()).isEqualTo(3);
     }
 
+    @Test
+    void updating_a_buy_order_never_releases_its_reservation_to_other_lanes() throws InvalidRequestException {
+        Broker reserved = spy(Broker.builder().brokerId(1).credit(0).build());
+        Order order = Order.builder().orderId(11).security(security).side(BUY).quantity(100).price(15000).broker(reserved).shareholder(shareholder).build();
+        security.getOrderBook().enqueue(order);
+        AtomicBoolean stolen = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (!stolen.getAndSet(true))
+                reserved.decreaseCreditBy(reserved.getCredit());
+            return invocation.callRealMethod();
+        }).when(reserved).tryDecreaseCreditBy(anyLong());
+
+        EnterOrderRq updateOrderRq = EnterOrderRq.createUpdateOrderRq(1, security.getIsin(), 11, LocalDateTime.now(), BUY, 100, 14000, 1, 0, 0);
+        MatchResult result = security.updateOrder(updateOrderRq, matcher);
+
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.EXECUTED);
+        assertThat(reserved.getCredit()).isEqualTo(100_000);
+        assertThat(security.getOrderBook().findByOrderId(BUY, 11).getPrice()).isEqualTo(14000);
+    }
+
+    @Test
+    void a_failed_buy_update_keeps_its_reservation_without_overdrawing() throws InvalidRequestException {
+        Broker reserved = Broker.builder().brokerId(1).credit(0).build();
+        Order order = Order.builder().orderId(11).security(security).side(BUY).quantity(100).price(15000).broker(reserved).shareholder(shareholder).build();
+        security.getOrderBook().enqueue(order);
+
+        EnterOrderRq updateOrderRq = EnterOrderRq.createUpdateOrderRq(1, security.getIsin(), 11, LocalDateTime.now(), BUY, 100, 16000, 1, 0, 0);
+        MatchResult result = security.updateOrder(updateOrderRq, matcher);
+
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.NOT_ENOUGH_CREDIT);
+        assertThat(reserved.getCredit()).isZero();
+        assertThat(security.getOrderBook().findByOrderId(BUY, 11).getPrice()).isEqualTo(15000);
+    }
+
+    @Test
+    void a_rejected_priority_losing_update_returns_the_order_to_its_original_level() throws InvalidRequestException {
+        Broker reserved = Broker.builder().brokerId(1).credit(0).build();
+        Order order = Order.builder().orderId(11).security(security).side(BUY).quantity(100).price(15750).broker(reserved).shareholder(shareholder).build();
+        security.getOrderBook().enqueue(order);
+
+        EnterOrderRq updateOrderRq = EnterOrderRq.createUpdateOrderRq(1, security.getIsin(), 11, LocalDateTime.now(), BUY, 200, 15000, 1, 0, 0);
+        MatchResult result = security.updateOrder(updateOrderRq, matcher);
+
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.NOT_ENOUGH_CREDIT);
+        assertThat(security.getOrderBook().bestPrice(BUY)).isEqualTo(15750);
+        assertThat(security.getOrderBook().getDepth(BUY)).containsEntry(15750, 100L).doesNotContainKey(15000);
+        assertThat(security.getOrderBook().getBuyQueue().get(0).getOrderId()).isEqualTo(11);
+        assertThat(security.getOrderBook().getBuyQueue().get(0).getPrice()).isEqualTo(15750);
+    }
+
     @Test
     void increasing_quantity_changes_priority() {
         EnterOrderRq updateOrderRq = EnterOrderRq.createUpdateOrderRq(1, security.getIsin(), 3, LocalDateTime.now(), BUY, 450, 15450, 0, 0, 0);
@@ -190,5 +247,79 @@ class SecurityTest {
         assertThat(result.remainder().getQuantity()).isZero();
     }
 
+    private Security crossedSecurity(int tickSize, int lastTradePrice) {
+        Security crossed = Security.builder().isin("XYZ").tickSize(tickSize).lastTradePrice(lastTradePrice).build();
+        shareholder.incPosition(crossed, 100_000);
+        return crossed;
+    }
+
+    private void enqueue(Security target, long orderId, Side side, int quantity, int price) {
+        target.getOrderBook().enqueue(Order.builder().orderId(orderId).security(target).side(side)
+                .quantity(quantity).price(price).broker(broker).shareholder(shareholder).build());
+    }
+
+    @Test
+    void opening_price_agrees_with_scanning_every_price() {
+        Random random = new Random(12);
+        for (int round = 0; round < 200; round++) {
+            int tickSize = round % 2 == 0 ? 1 : 5;
+            Security crossed = crossedSecurity(tickSize, 90 + random.nextInt(40));
+            for (int i = 0; i < 12; i++)
+                enqueue(crossed, i + 1, random.nextBoolean() ? BUY : SELL, 1 + random.nextInt(20), tickSize * (95 / tickSize + random.nextInt(30 / tickSize)));
+
+            int expectedPrice = crossed.getLastTradePrice();
+            int expectedQuantity = crossed.getQuantityBasedOnPrice(expectedPrice);
+            if (crossed.getOrderBook().hasOrderOfType(BUY) && crossed.getOrderBook().hasOrderOfType(SELL)) {
+                for (int price = crossed.getOrderBook().getWorstPrice(BUY); price <= crossed.getOrderBook().getWorstPrice(SELL); price++) {
+                    int quantity = crossed.getQuantityBasedOnPrice(price);
+                    if (quantity > expectedQuantity || quantity == expectedQuantity &&
+                            Math.abs(price - crossed.getLastTradePrice()) < Math.abs(expectedPrice - crossed.getLastTradePrice())) {
+                        expectedPrice = price;
+                        expectedQuantity = quantity;
+                    }
+                }
+            }
+            else {
+                expectedPrice = 0;
+                expectedQuantity = 0;
+            }
+
+            var openingPrice = crossed.calculateOpeningPrice();
+            assertThat(openingPrice.getVal1()).isEqualTo(expectedPrice);
+            assertThat(openingPrice.getVal2()).isEqualTo(expectedQuantity);
+        }
+    }
 
-}
\ No newline at end of file
+    @Test
+    void opening_price_of_a_wide_book_is_found_without_scanning_the_spread() {
+        Security crossed = crossedSecurity(1, 500_000_000);
+        enqueue(crossed, 1, BUY, 10, 1);
+        enqueue(crossed, 2, BUY, 10, 1_000_000_000);
+        enqueue(crossed, 3, SELL, 10, 2);
+        enqueue(crossed, 4, SELL, 10, 2_000_000_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            var openingPrice = crossed.calculateOpeningPrice();
+            assertThat(openingPrice.getVal1()).isEqualTo(500_000_000);
+            assertThat(openingPrice.getVal2()).isEqualTo(10);
+        });
+    }
+
+    @Test
+    void opening_price_prefers_last_trade_price_then_the_nearest_price_of_the_crossing_range() {
+        Security inside = crossedSecurity(10, 170);
+        enqueue(inside, 1, BUY, 10, 200);
+        enqueue(inside, 2, BUY, 10, 140);
+        enqueue(inside, 3, SELL, 10, 150);
+        enqueue(inside, 4, SELL, 10, 210);
+        Security below = crossedSecurity(10, 120);
+        enqueue(below, 1, BUY, 10, 200);
+        enqueue(below, 2, BUY, 10, 140);
+        enqueue(below, 3, SELL, 10, 150);
+        enqueue(below, 4, SELL, 10, 210);
+
+        assertThat(inside.calculateOpeningPrice().getVal1()).isEqualTo(170);
+        assertThat(below.calculateOpeningPrice().getVal1()).isEqualTo(150);
+        assertThat(below.getOpeningPrice()).isEqualTo(150);
+    }
+}
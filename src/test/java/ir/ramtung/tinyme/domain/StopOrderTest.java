@@ -10,10 +10,12 @@ import ir.ramtung.tinyme.messaging.event.*;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
 import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.EnterOrderRepo;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
@@ -24,6 +26,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.never;
 
@@ -96,6 +99,17 @@ public class StopOrderTest {
                 List.of(Message.STOP_ORDER_CANNOT_BE_ICEBERG_TOO)));
     }
 
+    @Test
+    void reject_trailing_stop_before_the_first_trade() {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewTrailingStopOrderRq(1, "ABC", 10,
+                LocalDateTime.now(), Side.SELL, 50, 90, sellBroker.getBrokerId(),
+                shareholder.getShareholderId(), 10));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 10,
+                List.of(Message.TRAILING_STOP_ORDER_NEEDS_REFERENCE_PRICE)));
+        assertThat(security.getQueueInfo().getSellDisabledOrders().theSize()).isZero();
+    }
+
     @Test
     void reject_negative_stop_limit_price() {
         orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 6,
@@ -396,6 +410,96 @@ public class StopOrderTest {
         verify(eventPublisher, never()).publish(new OrderExecutedEvent(5, 12, List.of(new TradeDTO(t3))));
     }
 
+    private void enterSellStopCascade() {
+        mockTradeWithPrice(200);
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(3, "ABC", 10, LocalDateTime.now(), Side.SELL, 50, 170, 1, 0, 0, 0, 190));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(4, "ABC", 11, LocalDateTime.now(), Side.SELL, 50, 170, 1, 0, 0, 0, 195));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(5, "ABC", 12, LocalDateTime.now(), Side.SELL, 75, 170, 1, 0, 0, 0, 190));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 6, LocalDateTime.now(), Side.BUY, 100, 170, 2, 0, 0, 0, 0));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(2, "ABC", 3, LocalDateTime.now(), Side.SELL, 25, 170, 1, 0, 0, 0, 0));
+    }
+
+    @Test
+    void stop_order_cascade_length_is_recorded() {
+        long cascades = orderHandler.getCascadeMetrics().getCascades();
+        long activations = orderHandler.getCascadeMetrics().getActivations();
+
+        enterSellStopCascade();
+
+        assertThat(orderHandler.getCascadeMetrics().getCascades()).isEqualTo(cascades + 1);
+        assertThat(orderHandler.getCascadeMetrics().getActivations()).isEqualTo(activations + 3);
+        assertThat(orderHandler.getCascadeMetrics().getLongest()).isGreaterThanOrEqualTo(3);
+        assertThat(security.getQueueInfo().getSellEnabledOrders().theSize()).isZero();
+    }
+
+    @Test
+    void stop_order_cascade_continues_inline_in_budgeted_slices() {
+        long truncated = orderHandler.getCascadeMetrics().getTruncated();
+        orderHandler.setCascadeBudget(1);
+        try {
+            enterSellStopCascade();
+        } finally {
+            orderHandler.setCascadeBudget(10_000);
+        }
+
+        InOrder inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher).publish(new OrderActivatedEvent(4, 11));
+        inOrder.verify(eventPublisher).drainBatch();
+        inOrder.verify(eventPublisher).publish(new OrderActivatedEvent(3, 10));
+        inOrder.verify(eventPublisher).drainBatch();
+        inOrder.verify(eventPublisher).publish(new OrderActivatedEvent(5, 12));
+        assertThat(security.getQueueInfo().getSellEnabledOrders().theSize()).isZero();
+        assertThat(orderHandler.getCascadeMetrics().getTruncated()).isGreaterThan(truncated);
+    }
+
+    @Test
+    void sell_trailing_stop_follows_the_highest_trade_price() {
+        mockTradeWithPrice(100);
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewTrailingStopOrderRq(1, "ABC", 10, LocalDateTime.now(), Side.SELL, 50, 90, 1, 0, 10));
+        EnterOrderRepo disabled = security.getQueueInfo().getSellDisabledOrders();
+
+        security.updateLastTradePrice(120);
+        security.handleDisabledOrders();
+        security.updateLastTradePrice(111);
+        security.handleDisabledOrders();
+        assertThat(disabled.existByRqId(1)).isTrue();
+
+        security.updateLastTradePrice(110);
+        security.handleDisabledOrders();
+        assertThat(disabled.existByRqId(1)).isFalse();
+        assertThat(security.getQueueInfo().getSellEnabledOrders().findByRqId(1).getStopPrice()).isEqualTo(110);
+    }
+
+    @Test
+    void buy_trailing_stops_entered_at_different_prices_share_the_lowest_trade_price() {
+        mockTradeWithPrice(100);
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewTrailingStopOrderRq(1, "ABC", 10, LocalDateTime.now(), Side.BUY, 10, 200, 2, 0, 5));
+        security.updateLastTradePrice(90);
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewTrailingStopOrderRq(2, "ABC", 11, LocalDateTime.now(), Side.BUY, 10, 200, 2, 0, 8));
+        EnterOrderRepo disabled = security.getQueueInfo().getBuyDisabledOrders();
+        assertThat(disabled.stopPriceOf(1)).isEqualTo(95);
+        assertThat(disabled.stopPriceOf(2)).isEqualTo(98);
+
+        security.updateLastTradePrice(80);
+        assertThat(disabled.stopPriceOf(1)).isEqualTo(85);
+        assertThat(disabled.stopPriceOf(2)).isEqualTo(88);
+
+        security.updateLastTradePrice(86);
+        security.handleDisabledOrders();
+        assertThat(disabled.existByRqId(1)).isFalse();
+        assertThat(disabled.existByRqId(2)).isTrue();
+    }
+
+    @Test
+    void trailing_stop_order_cannot_be_updated_before_activation() {
+        mockTradeWithPrice(100);
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewTrailingStopOrderRq(1, "ABC", 10, LocalDateTime.now(), Side.SELL, 50, 90, 1, 0, 10));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createUpdateOrderRq(2, "ABC", 10, LocalDateTime.now(), Side.SELL, 40, 90, 1, 0, 0, 0, 0));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(2, 10, List.of(Message.CANNOT_UPDATE_TRAILING_STOP_ORDER)));
+    }
+
     @Test
     void update_stop_order_before_activation_not_found() {
         orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 10,
@@ -0,0 +1,128 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UndoLogTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private OrderBook orderBook;
+    private Order iceberg;
+    private Order plain;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().build();
+        broker = Broker.builder().brokerId(1).credit(1_000).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100);
+        orderBook = security.getOrderBook();
+        iceberg = IcebergOrder.builder().orderId(1).security(security).side(Side.SELL).quantity(30).price(100)
+                .broker(broker).shareholder(shareholder).peakSize(10).build();
+        plain = Order.builder().orderId(2).security(security).side(Side.SELL).quantity(20).price(100)
+                .broker(broker).shareholder(shareholder).build();
+        orderBook.enqueue(iceberg);
+        orderBook.enqueue(plain);
+    }
+
+    @Test
+    void rolls_back_removals_replenishes_and_fills_in_reverse_order() {
+        UndoLog undoLog = new UndoLog();
+
+        undoLog.recordState(iceberg, orderBook);
+        iceberg.decreaseQuantity(10);
+        undoLog.removeFirst(orderBook, iceberg);
+        ((IcebergOrder) iceberg).replenish();
+        undoLog.enqueue(orderBook, iceberg);
+        undoLog.recordState(plain, orderBook);
+        plain.decreaseQuantity(5);
+        orderBook.syncQuantity(plain);
+        assertThat(orderBook.getSellQueue()).containsExactly(plain, iceberg);
+
+        undoLog.rollback();
+
+        assertThat(orderBook.getSellQueue()).containsExactly(iceberg, plain);
+        assertThat(orderBook.getSellQueue()).extracting(Order::getQuantity).containsExactly(10, 20);
+        assertThat(orderBook.totalSellQuantityByPrice(100)).isEqualTo(50);
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(50);
+    }
+
+    @Test
+    void rolls_back_a_cleared_trailing_stop() {
+        Order trailingStop = Order.builder().orderId(3).security(security).side(Side.SELL).quantity(10).price(90)
+                .broker(broker).shareholder(shareholder).stopPrice(95).trailingOffset(5).build();
+        UndoLog undoLog = new UndoLog();
+
+        undoLog.recordState(trailingStop, null);
+        trailingStop.setStopPriceZero();
+        undoLog.rollback();
+
+        assertThat(trailingStop.getStopPrice()).isEqualTo(95);
+        assertThat(trailingStop.getTrailingOffset()).isEqualTo(5);
+        assertThat(trailingStop.isTrailingStopOrder()).isTrue();
+    }
+
+    @Test
+    void rolls_back_credit_and_positions() {
+        UndoLog undoLog = new UndoLog();
+        undoLog.increaseCredit(broker, 300);
+        assertThat(undoLog.tryDecreaseCredit(broker, 2_000)).isFalse();
+        assertThat(undoLog.tryDecreaseCredit(broker, 500)).isTrue();
+        undoLog.decPosition(shareholder, security, 40);
+
+        undoLog.rollback();
+
+        assertThat(broker.getCredit()).isEqualTo(1_000);
+        assertThat(shareholder.hasEnoughPositionsOn(security, 100)).isTrue();
+        assertThat(shareholder.hasEnoughPositionsOn(security, 101)).isFalse();
+    }
+
+    @Test
+    void rolls_back_only_entries_after_a_mark() {
+        UndoLog undoLog = new UndoLog();
+        undoLog.tryDecreaseCredit(broker, 100);
+        int mark = undoLog.mark();
+        undoLog.tryDecreaseCredit(broker, 200);
+        undoLog.remove(orderBook, plain);
+
+        undoLog.rollbackTo(mark);
+
+        assertThat(broker.getCredit()).isEqualTo(900);
+        assertThat(orderBook.getSellQueue()).isEqualTo(List.of(iceberg, plain));
+    }
+
+    @Test
+    void a_log_that_does_not_record_only_applies_changes() {
+        UndoLog undoLog = UndoLog.notRecording();
+        undoLog.tryDecreaseCredit(broker, 100);
+        undoLog.remove(orderBook, plain);
+
+        undoLog.rollback();
+
+        assertThat(broker.getCredit()).isEqualTo(900);
+        assertThat(orderBook.getSellQueue()).containsExactly(iceberg);
+    }
+
+    @Test
+    void held_credit_is_spent_before_free_credit_and_restored_on_rollback() {
+        UndoLog undoLog = new UndoLog();
+        undoLog.holdCredit(broker, 300);
+
+        assertThat(undoLog.hasEnoughCredit(broker, 1_300)).isTrue();
+        assertThat(undoLog.tryDecreaseCredit(broker, 500)).isTrue();
+        assertThat(broker.getCredit()).isEqualTo(800);
+
+        undoLog.rollback();
+        assertThat(broker.getCredit()).isEqualTo(1_000);
+
+        assertThat(undoLog.tryDecreaseCredit(broker, 100)).isTrue();
+        undoLog.releaseHeldCredit();
+        assertThat(broker.getCredit()).isEqualTo(1_200);
+    }
+}
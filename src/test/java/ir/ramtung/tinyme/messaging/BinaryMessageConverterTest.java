@@ -0,0 +1,72 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.support.converter.MessageConversionException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryMessageConverterTest {
+    private final BinaryMessageConverter converter = new BinaryMessageConverter();
+
+    private Object roundTrip(Object object) {
+        return converter.decode(object.getClass().getName(), converter.encode(object));
+    }
+
+    @Test
+    void requests_survive_a_round_trip() {
+        LocalDateTime entryTime = LocalDateTime.of(2024, 3, 1, 9, 30, 0, 123456789);
+        EnterOrderRq enter = EnterOrderRq.createNewOrderRq(1, "ABC", 2, entryTime, Side.SELL, 300, 15500, 3, 4, 100, 50, 15000);
+        EnterOrderRq trailing = EnterOrderRq.createNewTrailingStopOrderRq(5, "ABC", 6, entryTime, Side.BUY, 10, 15700, 3, 4, 20);
+        DeleteOrderRq delete = new DeleteOrderRq(7, "ABC", Side.BUY, 6, entryTime);
+        ChangeMatchingStateRq change = new ChangeMatchingStateRq("ABC", MatchingState.AUCTION);
+        ChangeMarketPhaseRq phase = new ChangeMarketPhaseRq(List.of("ABC", "XYZ"), MatchingState.CONTINUOUS);
+
+        assertThat(roundTrip(enter)).isEqualTo(enter);
+        assertThat(roundTrip(trailing)).isEqualTo(trailing);
+        assertThat(roundTrip(delete)).isEqualTo(delete);
+        assertThat(roundTrip(change)).isEqualTo(change);
+        assertThat(roundTrip(phase)).isEqualTo(phase);
+    }
+
+    @Test
+    void events_keep_their_payload_and_time() {
+        List<Event> events = List.of(
+                new OrderAcceptedEvent(1, 2),
+                new OrderActivatedEvent(1, 2),
+                new OrderDeletedEvent(1, 2),
+                new OrderUpdatedEvent(1, 2),
+                new OrderExecutedEvent(1, 2, List.of(new TradeDTO("ABC", 15500, 300, 2, 9))),
+                new OrderRejectedEvent(1, 2, List.of(Message.UNKNOWN_SECURITY_ISIN, Message.INVALID_ORDER_ID)),
+                new OpeningPriceEvent("ABC", 15500, 1200),
+                new SecurityStateChangedEvent("ABC", MatchingState.AUCTION),
+                new TradeEvent("ABC", 15500, 300, 2, 9));
+
+        for (Event event : events) {
+            Event decoded = (Event) roundTrip(event);
+            assertThat(decoded).isEqualTo(event);
+            assertThat(decoded.getTime()).isEqualTo(event.getTime());
+        }
+    }
+
+    @Test
+    void missing_fields_stay_missing() {
+        EnterOrderRq enter = new EnterOrderRq();
+        OrderRejectedEvent rejected = new OrderRejectedEvent(1, 2, null);
+
+        assertThat(roundTrip(enter)).isEqualTo(enter);
+        assertThat(roundTrip(rejected)).isEqualTo(rejected);
+    }
+
+    @Test
+    void unknown_types_are_refused() {
+        assertThatThrownBy(() -> converter.encode("not a message"))
+                .isInstanceOf(MessageConversionException.class);
+    }
+}
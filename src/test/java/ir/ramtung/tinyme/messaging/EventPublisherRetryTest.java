@@ -0,0 +1,111 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventPublisherRetryTest {
+    private ConnectionFactory connectionFactory;
+    private Connection connection;
+    private Session session;
+    private MessageProducer producer;
+    private MessageConverter messageConverter;
+    private EventPublisher eventPublisher;
+
+    @BeforeEach
+    void setup() throws JMSException {
+        connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        session = mock(Session.class);
+        producer = mock(MessageProducer.class);
+        messageConverter = mock(MessageConverter.class);
+        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session);
+        when(session.createProducer(any())).thenReturn(producer);
+        when(messageConverter.toMessage(any(), any())).thenReturn(mock(Message.class));
+
+        JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setMessageConverter(messageConverter);
+        eventPublisher = new EventPublisher(jmsTemplate, 1, "RS");
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        eventPublisher.shutdown();
+    }
+
+    @Test
+    void a_failed_batch_is_retried_until_the_broker_accepts_it() throws JMSException, InterruptedException {
+        CountDownLatch committed = new CountDownLatch(1);
+        when(connectionFactory.createConnection())
+                .thenThrow(new JMSException("broker down"))
+                .thenThrow(new JMSException("broker down"))
+                .thenReturn(connection);
+        doAnswer(invocation -> {
+            committed.countDown();
+            return null;
+        }).when(session).commit();
+
+        eventPublisher.publish(new OrderAcceptedEvent(1, 200));
+
+        assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+        eventPublisher.shutdown();
+        verify(connectionFactory, times(3)).createConnection();
+        verify(producer).send(any(Message.class));
+        assertThat(eventPublisher.isHealthy()).isTrue();
+    }
+
+    @Test
+    void publisher_is_unhealthy_while_the_broker_is_failing() throws JMSException, InterruptedException {
+        CountDownLatch attempted = new CountDownLatch(2);
+        when(connectionFactory.createConnection()).thenAnswer(invocation -> {
+            attempted.countDown();
+            throw new JMSException("broker down");
+        });
+
+        eventPublisher.publish(new OrderAcceptedEvent(1, 200));
+
+        assertThat(attempted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(eventPublisher.isHealthy()).isFalse();
+        assertThat(eventPublisher.pendingBatches()).isEqualTo(1);
+        verifyNoInteractions(producer);
+        doReturn(connection).when(connectionFactory).createConnection();
+    }
+
+    @Test
+    void a_full_publisher_queue_blocks_the_publishing_lane() throws JMSException, InterruptedException {
+        CountDownLatch attempted = new CountDownLatch(1);
+        when(connectionFactory.createConnection()).thenAnswer(invocation -> {
+            attempted.countDown();
+            throw new JMSException("broker down");
+        });
+        eventPublisher.publish(new OrderAcceptedEvent(1, 1));
+        assertThat(attempted.await(5, TimeUnit.SECONDS)).isTrue();
+        eventPublisher.publish(new OrderAcceptedEvent(2, 2));
+
+        Thread lane = new Thread(() -> eventPublisher.publish(new OrderAcceptedEvent(3, 3)));
+        lane.start();
+        lane.join(300);
+
+        assertThat(lane.isAlive()).isTrue();
+        doReturn(connection).when(connectionFactory).createConnection();
+        lane.join(5000);
+        assertThat(lane.isAlive()).isFalse();
+        verify(producer, timeout(5000).times(3)).send(any(Message.class));
+    }
+}
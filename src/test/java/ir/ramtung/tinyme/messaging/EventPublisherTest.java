@@ -1,5 +1,6 @@
 package ir.ramtung.tinyme.messaging;
 
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
 import ir.ramtung.tinyme.messaging.event.OrderExecutedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -47,4 +48,19 @@ public class EventPublisherTest {
 
         jmsTemplate.setReceiveTimeout(receiveTimeout);
     }
+
+    @Test
+    void batched_events_are_sent_together_in_publish_order() {
+        eventPublisher.startBatch();
+        eventPublisher.publish(new OrderAcceptedEvent(1, 200));
+        eventPublisher.publish(new OrderExecutedEvent(1, 200, List.of()));
+        eventPublisher.flush();
+
+        long receiveTimeout = jmsTemplate.getReceiveTimeout();
+        jmsTemplate.setReceiveTimeout(1000);
+        assertEquals(new OrderAcceptedEvent(1, 200), jmsTemplate.receiveAndConvert(responseQueue));
+        assertEquals(new OrderExecutedEvent(1, 200, List.of()), jmsTemplate.receiveAndConvert(responseQueue));
+
+        jmsTemplate.setReceiveTimeout(receiveTimeout);
+    }
 }
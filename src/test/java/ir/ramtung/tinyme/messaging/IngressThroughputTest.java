@@ -0,0 +1,110 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.support.JmsUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.artemis.mode=embedded", "logging.level.org.apache.activemq.audit=WARN"})
+class IngressThroughputTest {
+    private static final int SECURITIES = 64;
+    private static final int REQUESTS = 20_000;
+    private static final int CONSUMERS = 4;
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    @Autowired
+    private JmsTemplate jmsTemplate;
+    @Autowired
+    private ConnectionFactory connectionFactory;
+    @Autowired
+    private RequestDispatcher requestDispatcher;
+    @MockBean
+    private OrderHandler orderHandler;
+    @Value("${requestQueue}")
+    private String requestQueue;
+
+    private final Map<String, List<Long>> handledBySecurity = new ConcurrentHashMap<>();
+    private volatile CountDownLatch handled;
+
+    @BeforeEach
+    void setup() {
+        doAnswer(invocation -> {
+            EnterOrderRq rq = invocation.getArgument(0);
+            handledBySecurity.computeIfAbsent(rq.getSecurityIsin(), isin -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(rq.getRequestId());
+            handled.countDown();
+            return null;
+        }).when(orderHandler).handleEnterOrder(any());
+    }
+
+    private double messagesPerSecond(int consumers, String queueName) throws InterruptedException {
+        String queue = queueName + "?consumers-before-dispatch=" + consumers;
+        handledBySecurity.clear();
+        handled = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            String isin = "ISIN" + i % SECURITIES;
+            EnterOrderRq rq = EnterOrderRq.createNewOrderRq(i, isin, i, LocalDateTime.now(), Side.BUY, 10, 1000, 1, 1, 0);
+            jmsTemplate.convertAndSend(queue, rq, SecurityGroups.of(isin));
+        }
+
+        DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setDestinationName(queue);
+        container.setConcurrentConsumers(consumers);
+        container.setMessageListener((MessageListener) message -> {
+            try {
+                requestDispatcher.receiveRequest(message);
+            } catch (JMSException e) {
+                throw JmsUtils.convertJmsAccessException(e);
+            }
+        });
+        container.afterPropertiesSet();
+        long start = System.nanoTime();
+        container.start();
+        assertThat(handled.await(2, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - start;
+        container.shutdown();
+
+        for (List<Long> requestIds : handledBySecurity.values())
+            assertThat(requestIds).isSorted();
+        return REQUESTS * 1e9 / elapsed;
+    }
+
+    @Test
+    void grouped_consumers_keep_each_security_ordered_while_consuming_in_parallel() throws InterruptedException {
+        messagesPerSecond(1, requestQueue + ".warmup");
+        double single = messagesPerSecond(1, requestQueue + ".single");
+        double grouped = messagesPerSecond(CONSUMERS, requestQueue + ".grouped");
+
+        log.info(String.format("Ingress throughput: 1 consumer %.0f msg/s, %d grouped consumers %.0f msg/s (x%.2f)",
+                single, CONSUMERS, grouped, grouped / single));
+        assertThat(handledBySecurity).hasSize(SECURITIES);
+    }
+}
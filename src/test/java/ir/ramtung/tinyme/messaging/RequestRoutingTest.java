@@ -0,0 +1,111 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.MatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.request.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class RequestRoutingTest {
+    private OrderHandler orderHandler;
+    private MatchingStateHandler matchingStateHandler;
+    private EventPublisher eventPublisher;
+    private RequestSequencer requestSequencer;
+    private RequestDispatcher requestDispatcher;
+
+    @BeforeEach
+    void setup() {
+        orderHandler = mock(OrderHandler.class);
+        matchingStateHandler = mock(MatchingStateHandler.class);
+        eventPublisher = mock(EventPublisher.class);
+        requestSequencer = new RequestSequencer(4);
+        requestDispatcher = new RequestDispatcher(orderHandler, matchingStateHandler, requestSequencer, eventPublisher, new BinaryMessageConverter());
+    }
+
+    @Test
+    void enters_and_deletes_of_a_security_are_handled_in_arrival_order() throws InterruptedException {
+        EnterOrderRq enter = EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 300, 15450, 0, 0, 0);
+        DeleteOrderRq delete = new DeleteOrderRq(2, "ABC", Side.SELL, 200);
+        EnterOrderRq reenter = EnterOrderRq.createNewOrderRq(3, "ABC", 200, LocalDateTime.now(), Side.SELL, 100, 15450, 0, 0, 0);
+
+        requestDispatcher.dispatch(enter);
+        requestDispatcher.dispatch(delete);
+        requestDispatcher.dispatch(reenter);
+        requestSequencer.shutdown();
+
+        InOrder inOrder = inOrder(orderHandler);
+        inOrder.verify(orderHandler).handleEnterOrder(enter);
+        inOrder.verify(orderHandler).handleDeleteOrder(delete);
+        inOrder.verify(orderHandler).handleEnterOrder(reenter);
+    }
+
+    @Test
+    void each_request_publishes_in_its_own_batch() throws InterruptedException {
+        requestDispatcher.dispatch(new DeleteOrderRq(2, "ABC", Side.SELL, 200));
+        requestSequencer.shutdown();
+
+        InOrder inOrder = inOrder(eventPublisher, orderHandler);
+        inOrder.verify(eventPublisher).startBatch();
+        inOrder.verify(orderHandler).handleDeleteOrder(any());
+        inOrder.verify(eventPublisher).flush();
+    }
+
+    @Test
+    void unknown_requests_are_rejected() throws InterruptedException {
+        assertThatThrownBy(requestDispatcher.dispatch("not a request")::join)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        requestSequencer.shutdown();
+
+        verifyNoInteractions(orderHandler, matchingStateHandler, eventPublisher);
+    }
+
+    @Test
+    void state_changes_are_ordered_with_the_orders_of_their_security() throws InterruptedException {
+        EnterOrderRq enter = EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 300, 15450, 0, 0, 0);
+        ChangeMatchingStateRq change = new ChangeMatchingStateRq("ABC", MatchingState.AUCTION);
+        DeleteOrderRq delete = new DeleteOrderRq(2, "ABC", Side.SELL, 200);
+
+        requestDispatcher.dispatch(enter);
+        requestDispatcher.dispatch(change);
+        requestDispatcher.dispatch(delete);
+        requestSequencer.shutdown();
+
+        InOrder inOrder = inOrder(orderHandler, matchingStateHandler);
+        inOrder.verify(orderHandler).handleEnterOrder(enter);
+        inOrder.verify(matchingStateHandler).handleChangeMatchingState(change);
+        inOrder.verify(orderHandler).handleDeleteOrder(delete);
+    }
+
+    @Test
+    void a_market_phase_change_switches_each_listed_security_once() throws InterruptedException {
+        requestDispatcher.dispatch(new ChangeMarketPhaseRq(List.of("ABC", "DEF", "ABC"), MatchingState.CONTINUOUS));
+        requestSequencer.shutdown();
+
+        verify(matchingStateHandler).handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.CONTINUOUS));
+        verify(matchingStateHandler).handleChangeMatchingState(new ChangeMatchingStateRq("DEF", MatchingState.CONTINUOUS));
+        verifyNoMoreInteractions(matchingStateHandler);
+        verify(eventPublisher, times(2)).flush();
+    }
+
+    @Test
+    void a_failed_request_fails_its_message_after_processing() throws Exception {
+        EnterOrderRq enter = EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 300, 15450, 0, 0, 0);
+        jakarta.jms.Message message = mock(jakarta.jms.Message.class);
+        MessageConverter messageConverter = mock(MessageConverter.class);
+        when(messageConverter.fromMessage(message)).thenReturn(enter);
+        doThrow(new IllegalStateException()).when(orderHandler).handleEnterOrder(enter);
+        RequestDispatcher dispatcher = new RequestDispatcher(orderHandler, matchingStateHandler, requestSequencer, eventPublisher, messageConverter);
+
+        assertThatThrownBy(() -> dispatcher.receiveRequest(message)).isInstanceOf(IllegalStateException.class);
+        verify(eventPublisher).flush();
+    }
+}
@@ -0,0 +1,127 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestSequencerTest {
+    private RequestSequencer requestSequencer;
+
+    @BeforeEach
+    void setup() {
+        requestSequencer = new RequestSequencer(4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        requestSequencer.shutdown();
+    }
+
+    private String isinOnAnotherLane(String isin) {
+        return IntStream.range(0, 100).mapToObj(i -> "ISIN" + i)
+                .filter(other -> requestSequencer.laneOf(other) != requestSequencer.laneOf(isin))
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    void requests_of_a_security_run_in_submission_order() throws InterruptedException {
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 1000; i++) {
+            int request = i;
+            requestSequencer.submit("ABC", () -> handled.add(request));
+        }
+        requestSequencer.shutdown();
+
+        assertThat(handled).isEqualTo(IntStream.range(0, 1000).boxed().toList());
+    }
+
+    @Test
+    void a_security_always_uses_the_same_lane() {
+        assertThat(requestSequencer.laneOf("ABC")).isEqualTo(requestSequencer.laneOf("ABC"));
+        assertThat(requestSequencer.laneOf("ABC")).isBetween(0, requestSequencer.laneCount() - 1);
+    }
+
+    @Test
+    void securities_on_different_lanes_are_handled_concurrently() throws InterruptedException {
+        CountDownLatch otherLaneRan = new CountDownLatch(1);
+        AtomicInteger waited = new AtomicInteger();
+        requestSequencer.submit("ABC", () -> {
+            try {
+                if (otherLaneRan.await(5, TimeUnit.SECONDS))
+                    waited.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        requestSequencer.submit(isinOnAnotherLane("ABC"), otherLaneRan::countDown);
+        requestSequencer.shutdown();
+
+        assertThat(waited.get()).isEqualTo(1);
+    }
+
+    @Test
+    void a_failing_request_does_not_stop_its_lane() throws InterruptedException {
+        AtomicInteger handled = new AtomicInteger();
+        requestSequencer.submit("ABC", () -> { throw new IllegalStateException(); });
+        requestSequencer.submit("ABC", handled::incrementAndGet);
+        requestSequencer.shutdown();
+
+        assertThat(handled.get()).isEqualTo(1);
+    }
+
+    @Test
+    void a_failing_request_fails_its_future() {
+        CompletableFuture<Void> failed = requestSequencer.submit("ABC", () -> { throw new IllegalStateException(); });
+
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void a_full_lane_blocks_the_submitter_until_it_has_room() throws InterruptedException {
+        RequestSequencer bounded = new RequestSequencer(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        bounded.submit("ABC", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        bounded.submit("ABC", () -> {});
+        CompletableFuture<Void> submitted = CompletableFuture.runAsync(() -> bounded.submit("ABC", () -> {}));
+
+        Thread.sleep(200);
+        assertThat(submitted).isNotDone();
+        release.countDown();
+        submitted.join();
+        bounded.shutdown();
+    }
+
+    @Test
+    void broker_credit_shared_between_lanes_is_never_overdrawn() throws InterruptedException {
+        Broker broker = Broker.builder().credit(10_000).build();
+        AtomicInteger reserved = new AtomicInteger();
+        String other = isinOnAnotherLane("ABC");
+        for (int i = 0; i < 10_000; i++) {
+            requestSequencer.submit("ABC", () -> { if (broker.tryDecreaseCreditBy(1)) reserved.incrementAndGet(); });
+            requestSequencer.submit(other, () -> { if (broker.tryDecreaseCreditBy(1)) reserved.incrementAndGet(); });
+        }
+        requestSequencer.shutdown();
+
+        assertThat(reserved.get()).isEqualTo(10_000);
+        assertThat(broker.getCredit()).isZero();
+    }
+}